@@ -29,6 +29,7 @@ class Config:
     ID2LABEL = {i: label for i, label in enumerate(LABELS)}
     NUM_LABELS = len(LABELS)
     CONFIDENCE_THRESHOLD = 0.7
+    MAX_BATCH_SIZE = 32  # Upper bound for /batch_detect requests
     
     # Model path priority for deployment:
     # 1. Environment variable (set in Dockerfile)
@@ -334,6 +335,92 @@ class ProfanityDetector:
                 'processed_text': text
             }
     
+    def detect_profanity_batch(self, texts):
+        """Profanity detection for several texts in one forward pass"""
+        
+        if not self.is_ready():
+            # Same "not ready" answer as single detection, once per text
+            return [self.detect_profanity(text) for text in texts]
+        
+        try:
+            results = self._process_batch_with_model(texts, self.tokenizer, self.model)
+            logger.info(f"✅ Batch detection completed for {len(texts)} texts")
+            return results
+            
+        except Exception as e:
+            error_msg = f"Error during batch processing: {str(e)}"
+            logger.error(error_msg)
+            return [{
+                'error': error_msg,
+                'is_profane': False,
+                'confidence': 0.0,
+                'toxic_spans': [],
+                'processed_text': text
+            } for text in texts]
+    
+    def _process_batch_with_model(self, texts, tokenizer, model):
+        """Process a list of texts with one padded batch through the model"""
+        
+        processed_texts = [text.strip() for text in texts]
+        results = [None] * len(texts)
+        
+        # Empty texts are clean and never reach the model
+        batch_indices = [i for i, processed in enumerate(processed_texts) if processed]
+        for i, processed in enumerate(processed_texts):
+            if not processed:
+                results[i] = {
+                    'is_profane': False,
+                    'confidence': 0.0,
+                    'toxic_spans': [],
+                    'processed_text': ''
+                }
+        
+        if not batch_indices:
+            return results
+        
+        # Tokenize - identical settings to single detection so verdicts match
+        encoding = tokenizer(
+            [processed_texts[i] for i in batch_indices],
+            truncation=True,
+            padding='max_length',
+            max_length=self.config.MAX_LENGTH,
+            return_tensors='pt'
+        )
+        
+        input_ids = encoding['input_ids'].to(self.device)
+        attention_mask = encoding['attention_mask'].to(self.device)
+        
+        with torch.no_grad():
+            outputs = model(input_ids=input_ids, attention_mask=attention_mask)
+            logits = outputs['logits']
+            probabilities = torch.softmax(logits, dim=-1).cpu().numpy()
+            predictions = torch.argmax(logits, dim=-1).cpu().numpy()
+        
+        for row, i in enumerate(batch_indices):
+            processed_text = processed_texts[i]
+            toxic_spans = []
+            max_confidence = 0.0
+            
+            for j, (pred, prob_dist) in enumerate(zip(predictions[row], probabilities[row])):
+                if pred != 0:  # Not 'O' (clean)
+                    confidence = float(prob_dist[pred])
+                    max_confidence = max(max_confidence, confidence)
+                    
+                    char_start = int(max(0, j * 2))
+                    char_end = int(min(len(processed_text), char_start + 4))
+                    toxic_spans.append([char_start, char_end])
+            
+            is_profane = bool(len(toxic_spans) > 0 and max_confidence > self.config.CONFIDENCE_THRESHOLD)
+            results[i] = {
+                'is_profane': is_profane,
+                'confidence': float(max_confidence),
+                'toxic_spans': toxic_spans,
+                'processed_text': processed_text,
+                'model_type': 'phobert_trained'
+            }
+        
+        return results
+    
     def _process_text_with_model(self, text, tokenizer, model):
         """Process text with loaded model"""
         
@@ -482,6 +569,40 @@ def detect_profanity():
             'confidence': 0.0
         }), 500
 
+@app.route('/batch_detect', methods=['POST'])
+def batch_detect_profanity():
+    """Batch profanity detection endpoint - one forward pass for several texts"""
+    try:
+        detector = get_detector()
+        data = request.get_json()
+        
+        if not data or 'texts' not in data:
+            return jsonify({'error': 'Missing texts field in request'}), 400
+        
+        texts = data['texts']
+        
+        if not isinstance(texts, list) or not all(isinstance(text, str) for text in texts):
+            return jsonify({'error': 'Texts must be a list of strings'}), 400
+        
+        if len(texts) > detector.config.MAX_BATCH_SIZE:
+            return jsonify({'error': f'At most {detector.config.MAX_BATCH_SIZE} texts per batch'}), 400
+        
+        results = detector.detect_profanity_batch(texts)
+        for index, result in enumerate(results):
+            result['index'] = index
+        
+        logger.info(f"Batch profanity check: {len(texts)} texts -> {sum(1 for r in results if r['is_profane'])} PROFANE")
+        
+        return jsonify({
+            'results': results,
+            'timestamp': time.time(),
+            'model_version': 'phobert-trained-1.0'
+        })
+        
+    except Exception as e:
+        logger.error(f"Error in batch_detect endpoint: {e}")
+        return jsonify({'error': f'Server error: {str(e)}'}), 500
+
 @app.route('/model_info', methods=['GET'])
 def model_info():
     """Get model information"""
@@ -493,6 +614,7 @@ def model_info():
         'max_length': detector.config.MAX_LENGTH,
         'labels': detector.config.LABELS,
         'confidence_threshold': detector.config.CONFIDENCE_THRESHOLD,
+        'max_batch_size': detector.config.MAX_BATCH_SIZE,
         'model_loaded': detector.is_ready(),
         'memory_mode': 'persistent',
         'device': str(detector.device)
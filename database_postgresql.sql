@@ -3,8 +3,13 @@
 SET client_encoding = 'UTF8';
 SET timezone = 'UTC';
 
+DROP TABLE IF EXISTS offline_messages CASCADE;
+DROP TABLE IF EXISTS offline_inbox_seqs CASCADE;
+DROP TABLE IF EXISTS websocket_broker_payloads CASCADE;
+DROP TABLE IF EXISTS outbox_events CASCADE;
 DROP TABLE IF EXISTS reports CASCADE;
 DROP TABLE IF EXISTS bookmarks CASCADE;
+DROP TABLE IF EXISTS notification_counters CASCADE;
 DROP TABLE IF EXISTS notifications CASCADE;
 DROP TABLE IF EXISTS messages CASCADE;
 DROP TABLE IF EXISTS room_user CASCADE;
@@ -15,11 +20,14 @@ DROP TABLE IF EXISTS comments CASCADE;
 DROP TABLE IF EXISTS post_media CASCADE;
 DROP TABLE IF EXISTS post_reactions CASCADE;
 DROP TABLE IF EXISTS post_views CASCADE;
+DROP TABLE IF EXISTS post_stats CASCADE;
+DROP TABLE IF EXISTS timeline_entries CASCADE;
 DROP TABLE IF EXISTS posts CASCADE;
 DROP TABLE IF EXISTS post_type CASCADE;
 DROP TABLE IF EXISTS reaction_type CASCADE;
 DROP TABLE IF EXISTS location CASCADE;
 DROP TABLE IF EXISTS block CASCADE;
+DROP TABLE IF EXISTS follower_counts CASCADE;
 DROP TABLE IF EXISTS follows CASCADE;
 DROP TABLE IF EXISTS friends CASCADE;
 DROP TABLE IF EXISTS friend_requests CASCADE;
@@ -144,6 +152,13 @@ CREATE TABLE follows (
     CONSTRAINT no_self_follow CHECK (follower_id != following_id)
 );
 
+-- Follower count per account, maintained by FollowService (timeline fan-out-on-read decisions)
+CREATE TABLE follower_counts (
+    user_id INTEGER PRIMARY KEY,
+    followers_count BIGINT NOT NULL DEFAULT 0,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
 CREATE TABLE block (
     id BIGSERIAL PRIMARY KEY,
     user_id INTEGER NOT NULL,
@@ -168,6 +183,29 @@ CREATE TABLE posts (
     FOREIGN KEY (location_id) REFERENCES location(id)
 );
 
+CREATE TABLE post_stats (
+    post_id BIGINT PRIMARY KEY,
+    comments_count BIGINT NOT NULL DEFAULT 0,
+    likes_count BIGINT NOT NULL DEFAULT 0,
+    dislikes_count BIGINT NOT NULL DEFAULT 0,
+    bookmarks_count BIGINT NOT NULL DEFAULT 0,
+    views_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE
+);
+
+CREATE TABLE timeline_entries (
+    id BIGSERIAL PRIMARY KEY,
+    user_id INTEGER NOT NULL,
+    post_id BIGINT NOT NULL,
+    author_id INTEGER NOT NULL,
+    created_date TIMESTAMP WITH TIME ZONE NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE,
+    FOREIGN KEY (post_id) REFERENCES posts(id) ON DELETE CASCADE,
+    FOREIGN KEY (author_id) REFERENCES users(id) ON DELETE CASCADE,
+    CONSTRAINT unique_timeline_entry UNIQUE (user_id, post_id)
+);
+
 CREATE TABLE post_reactions (
     id BIGSERIAL PRIMARY KEY,
     post_id BIGINT NOT NULL,
@@ -253,12 +291,58 @@ CREATE TABLE notifications (
     content TEXT NULL,
     read_status BOOLEAN NOT NULL DEFAULT FALSE,
     created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    actor_count INTEGER NOT NULL DEFAULT 1,
+    recent_actor_ids VARCHAR(255) NULL,
+    group_bucket TIMESTAMP NULL,
     FOREIGN KEY (recipient_user_id) REFERENCES users(id),
     FOREIGN KEY (actor_user_id) REFERENCES users(id),
     FOREIGN KEY (post_id) REFERENCES posts(id),
     FOREIGN KEY (comment_id) REFERENCES comments(id)
 );
 
+CREATE TABLE notification_counters (
+    user_id INTEGER PRIMARY KEY,
+    unread_count BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE TABLE outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    event_type VARCHAR(50) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT NULL
+);
+
+-- Realtime frames too large for a NOTIFY payload; the notification carries the row id
+CREATE TABLE websocket_broker_payloads (
+    id BIGSERIAL PRIMARY KEY,
+    payload TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Last offline inbox sequence handed out per user; the row lock orders concurrent inserts
+CREATE TABLE offline_inbox_seqs (
+    user_id INTEGER PRIMARY KEY,
+    last_seq BIGINT NOT NULL,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Chat frames for users who were not connected; seq is the per-user resume sequence clients acknowledge
+CREATE TABLE offline_messages (
+    id BIGSERIAL PRIMARY KEY,
+    user_id INTEGER NOT NULL,
+    seq BIGINT NOT NULL,
+    frame TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE (user_id, seq),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
 CREATE TABLE bookmarks (
     id BIGSERIAL PRIMARY KEY,
     user_id INTEGER NOT NULL,
@@ -312,17 +396,27 @@ CREATE INDEX idx_follow_following ON follows(following_id);
 CREATE INDEX idx_block_user ON block(user_id);
 CREATE INDEX idx_block_blocked ON block(blocked_user_id);
 CREATE INDEX idx_post_user ON posts(user_id);
+CREATE INDEX idx_post_feed ON posts(created_date DESC, id DESC);
+CREATE INDEX idx_post_user_feed ON posts(user_id, created_date DESC, id DESC);
+CREATE INDEX idx_timeline_user_created ON timeline_entries(user_id, created_date DESC, post_id DESC);
+CREATE INDEX idx_timeline_post ON timeline_entries(post_id);
 CREATE INDEX idx_comment_user ON comments(user_id);
 CREATE INDEX idx_comment_post ON comments(post_id);
 CREATE INDEX idx_room_user_user ON room_user(user_id);
 CREATE INDEX idx_room_user_room ON room_user(chat_room_id);
 CREATE INDEX idx_message_sender ON messages(sender_id);
 CREATE INDEX idx_message_room ON messages(chat_room_id);
-CREATE INDEX idx_notification_recipient ON notifications(recipient_user_id);
+CREATE INDEX idx_notification_recipient_created ON notifications(recipient_user_id, created_at DESC, id DESC);
 CREATE INDEX idx_notification_actor ON notifications(actor_user_id);
 CREATE INDEX idx_notification_post ON notifications(post_id);
 CREATE INDEX idx_notification_read_status ON notifications(read_status);
-CREATE INDEX idx_notification_created_at ON notifications(created_at);
+CREATE INDEX idx_notification_unread ON notifications(recipient_user_id, created_at DESC, id DESC) WHERE read_status = FALSE;
+CREATE UNIQUE INDEX uq_notification_group ON notifications(recipient_user_id, post_id, type, group_bucket) WHERE group_bucket IS NOT NULL;
+CREATE UNIQUE INDEX uq_notification_friend_post ON notifications(recipient_user_id, post_id, type) WHERE type = 'FRIEND_POST';
+CREATE INDEX idx_notification_counters_updated ON notification_counters(updated_at);
+CREATE INDEX idx_outbox_due ON outbox_events(next_attempt_at, id) WHERE status = 'PENDING';
+CREATE INDEX idx_websocket_broker_payloads_created ON websocket_broker_payloads(created_at);
+CREATE INDEX idx_offline_messages_created ON offline_messages(created_at);
 CREATE INDEX idx_bookmark_user ON bookmarks(user_id);
 CREATE INDEX idx_bookmark_post ON bookmarks(post_id);
 CREATE INDEX idx_bookmark_created_at ON bookmarks(created_at);
@@ -94,7 +94,8 @@ function MessagesContent() {
       // Only add message if it's for the active chat
       if (newMessage.roomId === activeChat) {
         console.log('✅ Adding message to active chat');
-        setMessages(prev => [...prev, newMessage]);
+        // Offline catch-up can repeat a message already loaded from history
+        setMessages(prev => prev.some(m => m.id === newMessage.id) ? prev : [...prev, newMessage]);
       } else {
         console.log('ℹ️ Message not for active chat, skipping display');
       }
@@ -39,8 +39,8 @@ export default function RealTimeNotification({
       const newNotification: NotificationData = {
         id: Date.now(),
         type: notificationData.type || 'message',
-        title: notificationData.title || 'New Notification',
-        message: notificationData.message || '',
+        title: notificationData.title || notificationData.actorDisplayName || notificationData.actorUserName || 'New Notification',
+        message: notificationData.message || notificationData.content || '',
         avatar: notificationData.avatar,
         timestamp: new Date().toISOString(),
         isRead: false,
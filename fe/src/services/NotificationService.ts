@@ -54,7 +54,7 @@ const NotificationService = {
   // Get current user's notifications
   getAllNotifications: async (): Promise<NotificationDTO[]> => {
     try {
-      const response = await fetch(`${API_BASE_URL}/api/v1/notifications`, {
+      const response = await fetch(`${API_BASE_URL}/api/v1/notifications?legacy=true`, {
         method: 'GET',
         headers: createAuthHeaders(),
       });
@@ -94,7 +94,7 @@ const NotificationService = {
   // Get unread notifications
   getUnreadNotifications: async (): Promise<NotificationDTO[]> => {
     try {
-      const response = await fetch(`${API_BASE_URL}/api/v1/notifications/unread`, {
+      const response = await fetch(`${API_BASE_URL}/api/v1/notifications/unread?legacy=true`, {
         method: 'GET',
         headers: createAuthHeaders(),
       });
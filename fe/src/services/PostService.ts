@@ -137,7 +137,7 @@ const PostService = {
   // Post operations
   getAllPosts: async (): Promise<PostData[]> => {
     try {
-      const response = await fetch(`${API_BASE_URL}/api/v1/posts`, {
+      const response = await fetch(`${API_BASE_URL}/api/v1/posts?legacy=true`, {
         method: 'GET',
         headers: createAuthHeaders(),
       });
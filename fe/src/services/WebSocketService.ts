@@ -338,6 +338,18 @@ class WebSocketService {
       if (message.type === 'pong') {
         console.log('WebSocket pong received');
         return;
+      }
+
+      // Offline inbox catch-up: remember the last sequence so reconnects only fetch the delta
+      if (typeof message.offlineSeq === 'number') {
+        this.setLastSeenSeq(message.offlineSeq);
+      }
+      if (message.type === 'offline_sync') {
+        this.setLastSeenSeq(message.lastSeq);
+        if (message.truncated) {
+          console.warn('Offline inbox was truncated, reload chat history to catch up');
+        }
+        return;
       }      // Map backend message types to frontend expected types
       let messageType = message.type;
       if (message.type === 'userStatus') {
@@ -399,12 +411,42 @@ class WebSocketService {
     if (token && this.socket && this.socket.readyState === WebSocket.OPEN) {
       this.socket.send(JSON.stringify({
         type: 'authenticate',
-        token: token
+        token: token,
+        lastSeenSeq: this.getLastSeenSeq()
       }));
       console.log('Sent authentication message to WebSocket server');
     }
   }
 
+  /**
+   * Last offline inbox sequence received, stored per user
+   */
+  private getLastSeenSeq(): number | null {
+    const key = this.getLastSeenSeqKey();
+    const value = key ? localStorage.getItem(key) : null;
+    return value ? Number(value) : null;
+  }
+
+  private setLastSeenSeq(seq: number): void {
+    const key = this.getLastSeenSeqKey();
+    if (key && seq > (this.getLastSeenSeq() ?? 0)) {
+      localStorage.setItem(key, String(seq));
+    }
+  }
+
+  private getLastSeenSeqKey(): string | null {
+    const token = this.getAuthToken();
+    if (!token) {
+      return null;
+    }
+    try {
+      const payload = JSON.parse(atob(token.split('.')[1].replace(/-/g, '+').replace(/_/g, '/')));
+      return payload.sub ? `ws-last-seen-seq:${payload.sub}` : null;
+    } catch {
+      return null;
+    }
+  }
+
   /**
    * Generate unique ID for listeners
    */
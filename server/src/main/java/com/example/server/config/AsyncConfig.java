@@ -3,15 +3,18 @@ package com.example.server.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.core.task.TaskExecutor;
 
 /**
  * Async configuration for social media operations
  * Handles concurrent user requests, notifications, and background tasks
+ * Scheduling is enabled here too so @Scheduled maintenance jobs actually run
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
     /**
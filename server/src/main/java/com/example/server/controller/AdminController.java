@@ -3,6 +3,13 @@ package com.example.server.controller;
 import com.example.server.service.ReportService;
 import com.example.server.service.UserService;
 import com.example.server.service.PostService;
+import com.example.server.service.CommentService;
+import com.example.server.service.ProfanityDetectionService;
+import com.example.server.service.NotificationBulkWriter;
+import com.example.server.service.ChatMessageWriter;
+import com.example.server.service.OutboxDispatcher;
+import com.example.server.service.RoomMembershipCache;
+import com.example.server.handler.WebSocketHandler;
 import com.example.server.dto.*;
 import com.example.server.repository.UserRepository;
 import com.example.server.repository.PostRepository;
@@ -45,6 +52,27 @@ public class AdminController {
 
     @Autowired
     private ReportService reportService;
+    
+    @Autowired
+    private CommentService commentService;
+    
+    @Autowired
+    private ProfanityDetectionService profanityDetectionService;
+    
+    @Autowired
+    private NotificationBulkWriter notificationBulkWriter;
+
+    @Autowired
+    private OutboxDispatcher outboxDispatcher;
+
+    @Autowired
+    private WebSocketHandler webSocketHandler;
+
+    @Autowired
+    private RoomMembershipCache roomMembershipCache;
+
+    @Autowired
+    private ChatMessageWriter chatMessageWriter;
 
     @Autowired
     private UserRepository userRepository;
@@ -146,6 +174,61 @@ public class AdminController {
         }
     }
 
+    /**
+     * Get moderation client statistics (verdict cache hit/miss etc.)
+     */
+    @GetMapping("/moderation/stats")
+    public ResponseEntity<?> getModerationStats() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (!isAdmin(auth)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Access denied. Admin privileges required."));
+        }
+        return ResponseEntity.ok(profanityDetectionService.getModerationStats());
+    }
+
+    /**
+     * Get notification fan-out throughput statistics
+     */
+    @GetMapping("/notifications/stats")
+    public ResponseEntity<?> getNotificationStats() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (!isAdmin(auth)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Access denied. Admin privileges required."));
+        }
+        return ResponseEntity.ok(notificationBulkWriter.getStats());
+    }
+
+    /**
+     * Get outbox backlog, lag and delivery statistics
+     */
+    @GetMapping("/outbox/stats")
+    public ResponseEntity<?> getOutboxStats() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (!isAdmin(auth)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Access denied. Admin privileges required."));
+        }
+        return ResponseEntity.ok(outboxDispatcher.getStats());
+    }
+
+    /**
+     * Get per-session WebSocket send queue depth and slow-consumer statistics
+     */
+    @GetMapping("/websocket/stats")
+    public ResponseEntity<?> getWebSocketStats() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (!isAdmin(auth)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                .body(Map.of("error", "Access denied. Admin privileges required."));
+        }
+        Map<String, Object> stats = new HashMap<>(webSocketHandler.getSendQueueStats());
+        stats.put("roomMembershipCache", roomMembershipCache.getStats());
+        stats.put("chatMessageWriter", chatMessageWriter.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
     /**
      * Get all users with pagination
      */
@@ -620,7 +703,7 @@ public class AdminController {
             }
 
             if (commentRepository.existsById(commentId)) {
-                commentRepository.deleteById(commentId);
+                commentService.deleteComment(commentId);
                 return ResponseEntity.ok(Map.of("message", "Comment deleted successfully"));
             } else {
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
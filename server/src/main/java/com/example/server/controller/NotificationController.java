@@ -1,16 +1,19 @@
 package com.example.server.controller;
 
 import com.example.server.dto.NotificationDTO;
+import com.example.server.dto.NotificationPageDTO;
 import com.example.server.service.NotificationService;
 import com.example.server.repository.UserRepository;
 import com.example.server.model.Entity.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -26,13 +29,26 @@ public class NotificationController {
     @Autowired
     private UserRepository userRepository;
 
+    /**
+     * Current user's notifications, paginated by an opaque cursor. Pass legacy=true to get the old unbounded list.
+     */
     @GetMapping
-    public ResponseEntity<List<NotificationDTO>> getCurrentUserNotifications() {
+    public ResponseEntity<?> getCurrentUserNotifications(@RequestParam(required = false) String cursor,
+                                                         @RequestParam(required = false) Integer size,
+                                                         @RequestParam(defaultValue = "false") boolean legacy) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         Integer userId = getUserIdFromAuth(auth);
         
-        List<NotificationDTO> notifications = notificationService.getNotificationsByUserId(userId);
-        return ResponseEntity.ok(notifications);
+        if (legacy) {
+            List<NotificationDTO> notifications = notificationService.getNotificationsByUserId(userId);
+            return ResponseEntity.ok(notifications);
+        }
+        try {
+            NotificationPageDTO page = notificationService.getNotificationPage(userId, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/user/{userId}")
@@ -41,13 +57,26 @@ public class NotificationController {
         return ResponseEntity.ok(notifications);
     }
 
+    /**
+     * Current user's unread notifications, paginated like the full list. Pass legacy=true for the unbounded list.
+     */
     @GetMapping("/unread")
-    public ResponseEntity<List<NotificationDTO>> getUnreadNotifications() {
+    public ResponseEntity<?> getUnreadNotifications(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(required = false) Integer size,
+                                                    @RequestParam(defaultValue = "false") boolean legacy) {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         Integer userId = getUserIdFromAuth(auth);
         
-        List<NotificationDTO> notifications = notificationService.getUnreadNotificationsByUserId(userId);
-        return ResponseEntity.ok(notifications);
+        if (legacy) {
+            List<NotificationDTO> notifications = notificationService.getUnreadNotificationsByUserId(userId);
+            return ResponseEntity.ok(notifications);
+        }
+        try {
+            NotificationPageDTO page = notificationService.getUnreadNotificationPage(userId, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
     }
 
     @GetMapping("/count/unread")
@@ -124,10 +153,29 @@ public class NotificationController {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             Integer userId = getUserIdFromAuth(auth);
             
-            notificationService.markAllAsRead(userId);
+            int updated = notificationService.markAllAsRead(userId);
             
-            Map<String, String> response = new HashMap<>();
+            Map<String, Object> response = new HashMap<>();
             response.put("message", "All notifications marked as read");
+            response.put("updated", updated);
+            return ResponseEntity.ok(response);
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @PutMapping("/mark-read-before")
+    public ResponseEntity<?> markAsReadBefore(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime before) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Integer userId = getUserIdFromAuth(auth);
+            
+            int updated = notificationService.markAsReadBefore(userId, before);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Notifications marked as read");
+            response.put("updated", updated);
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().build();
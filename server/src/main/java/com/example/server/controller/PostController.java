@@ -44,10 +44,42 @@ public class PostController {    private final PostService postService;
         this.cloudinaryService = cloudinaryService;
     }
 
+    /**
+     * Home feed, paginated by an opaque cursor. Pass legacy=true to get the old unbounded list.
+     */
     @GetMapping
-    public ResponseEntity<List<PostDTO>> getAllPosts() {
-        List<PostDTO> posts = postService.getAllPosts();
-        return ResponseEntity.ok(posts);
+    public ResponseEntity<?> getAllPosts(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer size,
+                                         @RequestParam(defaultValue = "false") boolean legacy) {
+        if (legacy) {
+            List<PostDTO> posts = postService.getAllPosts();
+            return ResponseEntity.ok(posts);
+        }
+        try {
+            PostPageDTO page = postService.getFeedPage(cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * Personalized timeline of the current user, paginated by an opaque cursor
+     */
+    @GetMapping("/timeline")
+    public ResponseEntity<?> getTimeline(@RequestParam(required = false) String cursor,
+                                         @RequestParam(required = false) Integer size) {
+        try {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            Integer userId = getUserIdFromAuth(auth);
+
+            PostPageDTO page = postService.getTimelinePage(userId, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
     }
 
     @GetMapping("/{id}")
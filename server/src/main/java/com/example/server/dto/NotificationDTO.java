@@ -5,6 +5,7 @@ import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Data
 @NoArgsConstructor
@@ -22,4 +23,6 @@ public class NotificationDTO {
     private String content;
     private Boolean readStatus;
     private LocalDateTime createdAt;
+    private Integer actorCount;
+    private List<Integer> recentActorIds;
 }
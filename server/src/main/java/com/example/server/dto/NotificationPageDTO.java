@@ -0,0 +1,15 @@
+package com.example.server.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationPageDTO {
+    private List<NotificationDTO> notifications;
+    private String nextCursor; // Opaque token for the next page, null when there are no more notifications
+    private boolean hasMore;
+}
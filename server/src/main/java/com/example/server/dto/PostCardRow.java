@@ -0,0 +1,29 @@
+package com.example.server.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.time.ZonedDateTime;
+
+/**
+ * Flat projection row for a post card: the post with its author, type and location columns.
+ * Filled by a JPQL constructor expression so no entities are loaded.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostCardRow {
+    private Long postId;
+    private String content;
+    private ZonedDateTime createdDate;
+    private ZonedDateTime updatedAt;
+    private Integer authorId;
+    private String authorUsername;
+    private String authorDisplayName;
+    private String authorBio;
+    private String authorProfilePicture;
+    private Long typeId;
+    private String typeName;
+    private Integer locationId;
+    private String locationName;
+}
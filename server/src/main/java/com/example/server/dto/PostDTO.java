@@ -21,6 +21,9 @@ public class PostDTO {
     private List<CommentDTO> comments;
     private List<PostReactionDTO> reactions;
     private int likesCount;
+    private int dislikesCount;
     private int commentsCount;
+    private int bookmarksCount;
+    private long viewsCount;
     private boolean liked; // Whether current user liked this post
 }
@@ -1,5 +1,6 @@
 package com.example.server.dto;
 
+import com.example.server.model.Enum.MediaType;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
@@ -14,4 +15,9 @@ public class PostMediaDTO {
     private String mediaUrl;
     private String mediaType; // IMAGE, VIDEO, etc.
     private ZonedDateTime uploadedAt;
+
+    // Used by JPQL constructor projections, which hand over the enum as mapped on the entity
+    public PostMediaDTO(Long id, Long postId, String mediaUrl, MediaType mediaType, ZonedDateTime uploadedAt) {
+        this(id, postId, mediaUrl, mediaType != null ? mediaType.toString() : null, uploadedAt);
+    }
 }
@@ -0,0 +1,15 @@
+package com.example.server.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostPageDTO {
+    private List<PostDTO> posts;
+    private String nextCursor; // Opaque token for the next page, null when there are no more posts
+    private boolean hasMore;
+}
@@ -0,0 +1,11 @@
+package com.example.server.event;
+
+import com.example.server.dto.NotificationDTO;
+
+import java.util.List;
+
+/**
+ * Published by NotificationService for every batch of newly stored notifications.
+ * Listeners run after the surrounding transaction commits (or immediately when there is none).
+ */
+public record NotificationCreatedEvent(List<NotificationDTO> notifications) {}
@@ -0,0 +1,6 @@
+package com.example.server.event;
+
+/**
+ * Published when a friendship or follow between two users is created or removed.
+ */
+public record SocialGraphChangedEvent(Integer userId1, Integer userId2) {}
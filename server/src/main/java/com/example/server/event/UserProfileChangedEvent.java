@@ -0,0 +1,7 @@
+package com.example.server.event;
+
+/**
+ * Published when a user's profile (display name, avatar) or settings change.
+ * Holders of per-user snapshots, such as live WebSocket sessions, reload them on this event.
+ */
+public record UserProfileChangedEvent(Integer userId) {}
@@ -0,0 +1,64 @@
+package com.example.server.handler;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Single-process broker, the default for one backend instance. Envelopes are handed to the
+ * subscribers synchronously. Several brokers sharing one {@link Bus} behave like separate nodes,
+ * which lets multi-node fan-out be exercised without a database.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker.type", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRealtimeBroker implements RealtimeBroker {
+
+    public static final class Bus {
+        private final List<Consumer<RealtimeEnvelope>> subscribers = new CopyOnWriteArrayList<>();
+    }
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Bus bus;
+    private final AtomicLong published = new AtomicLong();
+
+    public InMemoryRealtimeBroker() {
+        this(new Bus());
+    }
+
+    public InMemoryRealtimeBroker(Bus bus) {
+        this.bus = bus;
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(RealtimeEnvelope envelope) {
+        published.incrementAndGet();
+        bus.subscribers.forEach(subscriber -> subscriber.accept(envelope));
+    }
+
+    @Override
+    public void subscribe(Consumer<RealtimeEnvelope> subscriber) {
+        bus.subscribers.add(subscriber);
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("type", "memory");
+        stats.put("nodeId", nodeId);
+        stats.put("published", published.get());
+        stats.put("subscribers", bus.subscribers.size());
+        return stats;
+    }
+}
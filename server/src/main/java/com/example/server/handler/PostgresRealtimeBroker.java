@@ -0,0 +1,219 @@
+package com.example.server.handler;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Broker over Postgres LISTEN/NOTIFY on the application database, so nodes need no extra infrastructure.
+ * Publishing uses a pooled connection; listening holds one dedicated connection outside the pool,
+ * reconnecting after failures. NOTIFY payloads are capped at 8000 bytes, so larger envelopes are
+ * stored in websocket_broker_payloads and only the row id is sent.
+ */
+@Component
+@ConditionalOnProperty(name = "websocket.broker.type", havingValue = "postgres")
+public class PostgresRealtimeBroker implements RealtimeBroker {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostgresRealtimeBroker.class);
+    // Leave headroom under the server's 8000 byte limit
+    private static final int MAX_NOTIFY_BYTES = 7900;
+    private static final String SPILL_PREFIX = "@";
+
+    @Value("${websocket.broker.channel:wingit_realtime}")
+    private String channel;
+
+    @Value("${websocket.broker.poll-timeout-ms:500}")
+    private int pollTimeoutMs;
+
+    @Value("${websocket.broker.reconnect-delay-ms:5000}")
+    private long reconnectDelayMs;
+
+    @Value("${websocket.broker.payload-retention-minutes:5}")
+    private int payloadRetentionMinutes;
+
+    @Value("${spring.datasource.url}")
+    private String datasourceUrl;
+
+    @Value("${spring.datasource.username}")
+    private String datasourceUsername;
+
+    @Value("${spring.datasource.password}")
+    private String datasourcePassword;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String nodeId = UUID.randomUUID().toString();
+    private final List<Consumer<RealtimeEnvelope>> subscribers = new CopyOnWriteArrayList<>();
+
+    private volatile boolean running;
+    private volatile boolean connected;
+    private Thread listenerThread;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong spilled = new AtomicLong();
+    private final AtomicLong failedPublishes = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+
+    public PostgresRealtimeBroker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void start() {
+        // LISTEN takes an identifier, not a bind parameter
+        if (!channel.matches("[a-z_][a-z0-9_]*")) {
+            throw new IllegalStateException("Invalid websocket.broker.channel: " + channel);
+        }
+        running = true;
+        listenerThread = new Thread(this::listen, "WingIt-Broker-Listener");
+        listenerThread.setDaemon(true);
+        listenerThread.start();
+        logger.info("Postgres realtime broker started on channel {} as node {}", channel, nodeId);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listenerThread != null) {
+            listenerThread.interrupt();
+        }
+    }
+
+    @Override
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void publish(RealtimeEnvelope envelope) {
+        try {
+            String payload = objectMapper.writeValueAsString(envelope);
+            if (payload.getBytes(StandardCharsets.UTF_8).length > MAX_NOTIFY_BYTES) {
+                Long id = jdbcTemplate.queryForObject(
+                    "INSERT INTO websocket_broker_payloads (payload) VALUES (?) RETURNING id", Long.class, payload);
+                payload = SPILL_PREFIX + id;
+                spilled.incrementAndGet();
+            }
+            jdbcTemplate.query("SELECT pg_notify(?, ?)", (ResultSetExtractor<Object>) rs -> null, channel, payload);
+            published.incrementAndGet();
+        } catch (Exception e) {
+            // Frames are best-effort like local sends; clients recover from history on reconnect
+            failedPublishes.incrementAndGet();
+            logger.error("Failed to publish realtime {} envelope", envelope.kind(), e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<RealtimeEnvelope> subscriber) {
+        subscribers.add(subscriber);
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(datasourceUrl, datasourceUsername, datasourcePassword)) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                connected = true;
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(pollTimeoutMs);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                reconnects.incrementAndGet();
+                logger.warn("Realtime broker connection lost, reconnecting in {}ms: {}", reconnectDelayMs, e.getMessage());
+            } finally {
+                connected = false;
+            }
+            if (!running) {
+                break;
+            }
+            try {
+                Thread.sleep(reconnectDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void dispatch(String payload) {
+        try {
+            if (payload.startsWith(SPILL_PREFIX)) {
+                List<String> stored = jdbcTemplate.queryForList(
+                    "SELECT payload FROM websocket_broker_payloads WHERE id = ?", String.class,
+                    Long.parseLong(payload.substring(SPILL_PREFIX.length())));
+                if (stored.isEmpty()) {
+                    return;
+                }
+                payload = stored.get(0);
+            }
+            RealtimeEnvelope envelope = objectMapper.readValue(payload, RealtimeEnvelope.class);
+            received.incrementAndGet();
+            for (Consumer<RealtimeEnvelope> subscriber : subscribers) {
+                subscriber.accept(envelope);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to dispatch realtime envelope", e);
+        }
+    }
+
+    /**
+     * Spilled payloads are only read right after their NOTIFY - runs every minute
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeSpilledPayloads() {
+        int deleted = jdbcTemplate.update(
+            "DELETE FROM websocket_broker_payloads WHERE created_at < CURRENT_TIMESTAMP - make_interval(mins => ?)",
+            payloadRetentionMinutes);
+        if (deleted > 0) {
+            logger.debug("Purged {} spilled realtime payloads", deleted);
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("type", "postgres");
+        stats.put("nodeId", nodeId);
+        stats.put("channel", channel);
+        stats.put("connected", connected);
+        stats.put("published", published.get());
+        stats.put("received", received.get());
+        stats.put("spilled", spilled.get());
+        stats.put("failedPublishes", failedPublishes.get());
+        stats.put("reconnects", reconnects.get());
+        return stats;
+    }
+}
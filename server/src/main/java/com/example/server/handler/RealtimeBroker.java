@@ -0,0 +1,20 @@
+package com.example.server.handler;
+
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Carries WebSocket frames between backend nodes. Each node delivers to its own sessions directly
+ * and publishes only what may have recipients elsewhere; subscribers see every envelope, including
+ * their own node's, and skip those whose origin is {@link #nodeId()}.
+ */
+public interface RealtimeBroker {
+
+    String nodeId();
+
+    void publish(RealtimeEnvelope envelope);
+
+    void subscribe(Consumer<RealtimeEnvelope> subscriber);
+
+    Map<String, Object> getStats();
+}
@@ -0,0 +1,57 @@
+package com.example.server.handler;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * A WebSocket frame published to the other nodes, with the addressing each node needs
+ * to find its own local recipients. Unused fields are left null and omitted from the payload.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record RealtimeEnvelope(String originNodeId, Kind kind, Integer userId, String username,
+                               Long roomId, Boolean online, String frame) {
+
+    public enum Kind {
+        // username = recipient
+        USER,
+        // userId = recipient
+        USER_ID,
+        // roomId = room, userId = sender left out of the fan-out
+        ROOM,
+        // userId/username = user whose status changed; delivered to local users watching them
+        PRESENCE,
+        // username = sender left out of the fan-out
+        BROADCAST,
+        // Node liveness only; other nodes drop the sender's users from remote presence when these stop
+        HEARTBEAT,
+        // roomId = room whose membership changed; other nodes drop their cached member ids
+        ROOM_MEMBERS
+    }
+
+    public static RealtimeEnvelope toUser(String originNodeId, String username, String frame) {
+        return new RealtimeEnvelope(originNodeId, Kind.USER, null, username, null, null, frame);
+    }
+
+    public static RealtimeEnvelope toUserId(String originNodeId, Integer userId, String frame) {
+        return new RealtimeEnvelope(originNodeId, Kind.USER_ID, userId, null, null, null, frame);
+    }
+
+    public static RealtimeEnvelope toRoom(String originNodeId, Long roomId, Integer excludeUserId, String frame) {
+        return new RealtimeEnvelope(originNodeId, Kind.ROOM, excludeUserId, null, roomId, null, frame);
+    }
+
+    public static RealtimeEnvelope presence(String originNodeId, Integer userId, String username, boolean online, String frame) {
+        return new RealtimeEnvelope(originNodeId, Kind.PRESENCE, userId, username, null, online, frame);
+    }
+
+    public static RealtimeEnvelope broadcast(String originNodeId, String excludeUsername, String frame) {
+        return new RealtimeEnvelope(originNodeId, Kind.BROADCAST, null, excludeUsername, null, null, frame);
+    }
+
+    public static RealtimeEnvelope heartbeat(String originNodeId) {
+        return new RealtimeEnvelope(originNodeId, Kind.HEARTBEAT, null, null, null, null, null);
+    }
+
+    public static RealtimeEnvelope roomMembersChanged(String originNodeId, Long roomId) {
+        return new RealtimeEnvelope(originNodeId, Kind.ROOM_MEMBERS, null, null, roomId, null, null);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.server.handler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serial outbound queue for one WebSocket session. Senders only enqueue; at most one drain task at a
+ * time writes the queue to the socket on the executor, so frames leave in enqueue order and no caller
+ * ever performs the socket write. The limits are checked on every enqueue: past the buffered byte limit
+ * DROP discards the oldest frames and TERMINATE closes the session, and a single write stuck for longer
+ * than the time limit always closes it. If the executor is saturated and hands the drain back to the
+ * submitting thread (CallerRunsPolicy), the drain is retried shortly instead of running there.
+ */
+class SessionOutbox {
+
+    enum Result { QUEUED, OVERFLOWED, CLOSED }
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionOutbox.class);
+    // Frames written per drain task before yielding the pool thread to other sessions
+    private static final int MAX_FRAMES_PER_DRAIN = 64;
+    private static final long SATURATED_RETRY_MS = 10;
+
+    private final WebSocketSession session;
+    private final Executor executor;
+    private final int sendTimeLimitMs;
+    private final int bufferSizeLimit;
+    private final ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy;
+    private final AtomicLong failedSends;
+
+    private final Queue<TextMessage> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger bufferedBytes = new AtomicInteger();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    // When the write in progress started, 0 while idle
+    private volatile long sendStartedAt;
+    private volatile boolean closed;
+
+    SessionOutbox(WebSocketSession session, Executor executor, int sendTimeLimitMs, int bufferSizeLimit,
+                  ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy, AtomicLong failedSends) {
+        this.session = session;
+        this.executor = executor;
+        this.sendTimeLimitMs = sendTimeLimitMs;
+        this.bufferSizeLimit = bufferSizeLimit;
+        this.overflowStrategy = overflowStrategy;
+        this.failedSends = failedSends;
+    }
+
+    Result offer(String payload) {
+        if (closed || !session.isOpen()) {
+            return Result.CLOSED;
+        }
+        TextMessage message = new TextMessage(payload);
+        long started = sendStartedAt;
+        if (started != 0 && System.currentTimeMillis() - started > sendTimeLimitMs) {
+            terminate("send time limit of " + sendTimeLimitMs + "ms exceeded");
+            return Result.OVERFLOWED;
+        }
+        if (bufferedBytes.get() + message.getPayloadLength() > bufferSizeLimit) {
+            if (overflowStrategy == ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE) {
+                terminate("buffer size limit of " + bufferSizeLimit + " bytes exceeded");
+                return Result.OVERFLOWED;
+            }
+            // DROP: make room by discarding the oldest frames still waiting
+            while (bufferedBytes.get() + message.getPayloadLength() > bufferSizeLimit) {
+                TextMessage dropped = queue.poll();
+                if (dropped == null) {
+                    break;
+                }
+                bufferedBytes.addAndGet(-dropped.getPayloadLength());
+            }
+        }
+        queue.add(message);
+        bufferedBytes.addAndGet(message.getPayloadLength());
+        if (draining.compareAndSet(false, true)) {
+            submitDrain();
+        }
+        return Result.QUEUED;
+    }
+
+    int getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    long getTimeSinceSendStarted() {
+        long started = sendStartedAt;
+        return started != 0 ? System.currentTimeMillis() - started : 0;
+    }
+
+    // Session is gone: nothing left is worth sending
+    void discard() {
+        closed = true;
+        queue.clear();
+        bufferedBytes.set(0);
+    }
+
+    private void terminate(String reason) {
+        discard();
+        logger.warn("Closing slow WebSocket session {}: {}", session.getId(), reason);
+        try {
+            session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            logger.debug("Error closing slow WebSocket session {}", session.getId(), e);
+        }
+    }
+
+    private void submitDrain() {
+        Thread submitter = Thread.currentThread();
+        try {
+            executor.execute(() -> {
+                if (Thread.currentThread() == submitter) {
+                    // Saturated executor ran us on the caller - never write the socket there
+                    CompletableFuture.delayedExecutor(SATURATED_RETRY_MS, TimeUnit.MILLISECONDS).execute(this::submitDrain);
+                    return;
+                }
+                drain();
+            });
+        } catch (RejectedExecutionException e) {
+            // Executor shut down; the session is going away with it
+            draining.set(false);
+        }
+    }
+
+    private void drain() {
+        int sent = 0;
+        TextMessage message;
+        while (!closed && sent < MAX_FRAMES_PER_DRAIN && (message = queue.poll()) != null) {
+            bufferedBytes.addAndGet(-message.getPayloadLength());
+            sendStartedAt = System.currentTimeMillis();
+            try {
+                session.sendMessage(message);
+            } catch (IOException | IllegalStateException e) {
+                failedSends.incrementAndGet();
+                logger.error("Error sending WebSocket message to session {}", session.getId(), e);
+            } finally {
+                sendStartedAt = 0;
+            }
+            sent++;
+        }
+        if (!closed && !queue.isEmpty()) {
+            submitDrain(); // Still the only drainer - yield and continue
+            return;
+        }
+        draining.set(false);
+        // A frame enqueued after the last poll but before the flag cleared would otherwise wait
+        if (!closed && !queue.isEmpty() && draining.compareAndSet(false, true)) {
+            submitDrain();
+        }
+    }
+}
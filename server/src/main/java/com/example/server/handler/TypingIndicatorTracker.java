@@ -0,0 +1,66 @@
+package com.example.server.handler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-(user, target) typing state, where the target is a room or a direct-message recipient.
+ * Clients send a typing event on every keystroke; only the idle -> typing and typing -> idle
+ * transitions are reported back for delivery, and a user who stops sending events is expired
+ * to idle after the timeout.
+ */
+class TypingIndicatorTracker<T> {
+
+    record Transition<T>(Integer userId, T target, boolean typing) {}
+
+    private record Key<T>(Integer userId, T target) {}
+
+    // Key -> time of the last typing event while typing
+    private final Map<Key<T>, Long> lastActivity = new ConcurrentHashMap<>();
+
+    /**
+     * Record a client typing event
+     * @return true if this changed the user's state towards the target and should be delivered
+     */
+    boolean update(Integer userId, T target, boolean typing, long now) {
+        Key<T> key = new Key<>(userId, target);
+        if (typing) {
+            return lastActivity.put(key, now) == null;
+        }
+        return lastActivity.remove(key) != null;
+    }
+
+    /**
+     * Stop everyone whose last typing event is older than the timeout
+     */
+    List<Transition<T>> expire(long now, long timeoutMs) {
+        List<Transition<T>> expired = new ArrayList<>();
+        lastActivity.forEach((key, last) -> {
+            if (now - last > timeoutMs && lastActivity.remove(key, last)) {
+                expired.add(new Transition<>(key.userId(), key.target(), false));
+            }
+        });
+        return expired;
+    }
+
+    /**
+     * Stop the user towards every target (disconnect)
+     */
+    List<Transition<T>> clearUser(Integer userId) {
+        List<Transition<T>> cleared = new ArrayList<>();
+        lastActivity.keySet().removeIf(key -> {
+            if (key.userId().equals(userId)) {
+                cleared.add(new Transition<>(key.userId(), key.target(), false));
+                return true;
+            }
+            return false;
+        });
+        return cleared;
+    }
+
+    int activeCount() {
+        return lastActivity.size();
+    }
+}
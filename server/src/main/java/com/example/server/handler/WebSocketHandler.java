@@ -1,51 +1,168 @@
 package com.example.server.handler;
 
 import com.example.server.config.JwtService;
+import com.example.server.event.SocialGraphChangedEvent;
+import com.example.server.event.UserProfileChangedEvent;
 import com.example.server.model.Entity.User;
-import com.example.server.model.Entity.RoomUser;
 import com.example.server.model.Entity.UserSettings;
+import com.example.server.repository.FollowRepository;
+import com.example.server.repository.FriendRepository;
+import com.example.server.repository.MessageRepository;
 import com.example.server.repository.UserRepository;
-import com.example.server.repository.RoomUserRepository;
+import com.example.server.service.ChatMessageWriter;
+import com.example.server.service.OfflineInbox;
+import com.example.server.service.RoomMembershipCache;
 import com.example.server.repository.UserSettingsRepository;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
 import org.springframework.web.socket.*;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 
 import java.io.IOException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
 
 @Component
 public class WebSocketHandler extends TextWebSocketHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(WebSocketHandler.class);
+    // Session attribute holding the SessionPrincipal resolved at authentication
+    private static final String PRINCIPAL_ATTRIBUTE = "wingit.principal";
     private final ObjectMapper objectMapper = new ObjectMapper();
+    // Same format as ZonedDateTime fields in REST responses
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
     
     // Store active WebSocket sessions with user information
     private final Map<String, WebSocketSession> userSessions = new ConcurrentHashMap<>();
-    private final Map<String, String> sessionToUser = new ConcurrentHashMap<>();    @Autowired
+    private final Map<String, String> sessionToUser = new ConcurrentHashMap<>();
+    // Presence index: user id -> principal of every authenticated, connected user
+    private final Map<Integer, SessionPrincipal> presence = new ConcurrentHashMap<>();
+    // Reverse of watchedIds for the connected users: watched user id -> ids of local users watching them
+    private final Map<Integer, Set<Integer>> localWatchers = new ConcurrentHashMap<>();
+    // Session id -> serial outbound queue with a bounded buffer, drained on the websocket executor; every send goes through it
+    private final Map<String, SessionOutbox> outboundSessions = new ConcurrentHashMap<>();
+    // Users online on other nodes: user id -> username, visibility and node, from presence envelopes
+    private final Map<Integer, RemotePresence> remotePresence = new ConcurrentHashMap<>();
+    // Username -> user id for remotePresence, so direct messages can check it without a scan
+    private final Map<String, Integer> remoteUserIdsByUsername = new ConcurrentHashMap<>();
+    // Other node id -> when any envelope from it was last seen; silent nodes lose their remote presence
+    private final Map<String, Long> remoteNodesLastSeen = new ConcurrentHashMap<>();
+    // Room id -> tail of the room's delivery chain, so persisted messages go out in id order
+    private final Map<Long, CompletableFuture<Void>> roomDeliveryChains = new ConcurrentHashMap<>();
+    private final AtomicLong overflowedSessions = new AtomicLong();
+    private final AtomicLong failedSends = new AtomicLong();
+
+    /**
+     * Everything the handler needs about an authenticated user, resolved once per session
+     * and reloaded on profile/settings/social graph changes, so messages and presence never hit the database.
+     * audienceIds (friends + followers) receive this user's status; watchedIds (friends + following)
+     * are the users whose status this user can request.
+     */
+    private record SessionPrincipal(Integer userId, String username, String displayName,
+                                    String profilePicture, boolean showOnlineStatus,
+                                    Set<Integer> audienceIds, Set<Integer> watchedIds) {}
+
+    private record RemotePresence(String username, boolean visible, String nodeId) {}
+
+    @Value("${websocket.send.time-limit-ms:5000}")
+    private int sendTimeLimitMs;
+
+    @Value("${websocket.send.buffer-size-limit:524288}")
+    private int sendBufferSizeLimit;
+
+    // Past the buffer limit TERMINATE closes a slow consumer's session, DROP discards its oldest queued
+    // messages; a single write stuck past the time limit always closes it
+    @Value("${websocket.send.overflow-strategy:TERMINATE}")
+    private ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy;
+
+    // A typing user who sends no further events for this long is reported as stopped
+    @Value("${websocket.typing.timeout-ms:5000}")
+    private long typingTimeoutMs;
+
+    // After the initial offline inbox drain, look again this much later for messages stored concurrently
+    @Value("${chat.offline.recheck-delay-ms:2000}")
+    private long offlineRecheckDelayMs;
+
+    // A node not heard from for this long is treated as gone, along with its users
+    @Value("${websocket.broker.node-timeout-ms:30000}")
+    private long nodeTimeoutMs;
+
+    private final TypingIndicatorTracker<Long> typingTracker = new TypingIndicatorTracker<>();
+    // Room-less typing, keyed by recipient username
+    private final TypingIndicatorTracker<String> directTypingTracker = new TypingIndicatorTracker<>();
+    private final AtomicLong typingEventsReceived = new AtomicLong();
+    private final AtomicLong typingFramesSent = new AtomicLong();
+
+    @Autowired
+    @Qualifier("websocketExecutor")
+    private TaskExecutor websocketExecutor;
+
+    @Autowired
     private JwtService jwtService;
     
     @Autowired
     private UserRepository userRepository;
     
     @Autowired
-    private RoomUserRepository roomUserRepository;
+    private RoomMembershipCache roomMembershipCache;
     
     @Autowired
     private UserSettingsRepository userSettingsRepository;
+    
+    @Autowired
+    private FriendRepository friendRepository;
+    
+    @Autowired
+    private FollowRepository followRepository;
+
+    @Autowired
+    private RealtimeBroker realtimeBroker;
+
+    @Autowired
+    private ChatMessageWriter chatMessageWriter;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private OfflineInbox offlineInbox;
+
+    @PostConstruct
+    public void subscribeToBroker() {
+        realtimeBroker.subscribe(this::onRemoteEnvelope);
+    }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         logger.info("WebSocket connection established: {}", session.getId());
+        outboundSessions.put(session.getId(), new SessionOutbox(
+            session, websocketExecutor, sendTimeLimitMs, sendBufferSizeLimit, overflowStrategy, failedSends));
         
         // Send a welcome message to confirm connection
         sendMessage(session, createMessage("connection", "connected", "WebSocket connection established"));
@@ -78,6 +195,9 @@ public class WebSocketHandler extends TextWebSocketHandler {
                 case "ping":
                     handlePing(session);
                     break;
+                case "offline_ack":
+                    handleOfflineAck(session, jsonNode);
+                    break;
                 default:
                     logger.warn("Unknown message type: {}", type);
                     sendErrorMessage(session, "Unknown message type: " + type);
@@ -97,15 +217,28 @@ public class WebSocketHandler extends TextWebSocketHandler {
                 User user = userRepository.findByUsername(username);
                 
                 if (user != null) {
+                    SessionPrincipal principal = loadPrincipal(user);
+                    session.getAttributes().put(PRINCIPAL_ATTRIBUTE, principal);
+
                     // Store the authenticated session
                     userSessions.put(username, session);
                     sessionToUser.put(session.getId(), username);
+                    SessionPrincipal replaced = presence.put(user.getId(), principal);
+                    if (replaced != null) {
+                        unindexWatcher(replaced);
+                    }
+                    indexWatcher(principal);
+                    removeRemotePresence(user.getId(), null);
                     
                     logger.info("User {} authenticated via WebSocket", username);
                     sendMessage(session, createMessage("auth", "success", "Authentication successful"));
                     
                     // Notify other users that this user is online
-                    broadcastUserStatus(username, "online");
+                    broadcastUserStatus(principal, "online");
+
+                    // Catch up on chat messages sent while disconnected
+                    Long lastSeenSeq = jsonNode.hasNonNull("lastSeenSeq") ? jsonNode.get("lastSeenSeq").asLong() : null;
+                    websocketExecutor.execute(() -> drainOfflineInbox(session, user.getId(), lastSeenSeq));
                 } else {
                     sendErrorMessage(session, "User not found");
                 }
@@ -117,113 +250,237 @@ public class WebSocketHandler extends TextWebSocketHandler {
             sendErrorMessage(session, "Authentication failed");
         }
     }    private void handleChatMessage(WebSocketSession session, JsonNode jsonNode) throws IOException {
-        String username = sessionToUser.get(session.getId());
-        if (username == null) {
+        SessionPrincipal principal = principalOf(session);
+        if (principal == null) {
             sendErrorMessage(session, "Not authenticated");
             return;
         }
+        String username = principal.username();
 
         try {
             // Handle both direct message format and nested data format
-            String content = null;
-            String recipientUsername = null;
-            String roomId = null;
-            
-            // Check if message has nested 'data' structure
-            if (jsonNode.has("data") && jsonNode.get("data").isObject()) {
-                JsonNode dataNode = jsonNode.get("data");
-                content = dataNode.has("content") ? dataNode.get("content").asText() : null;
-                recipientUsername = dataNode.has("recipient") ? dataNode.get("recipient").asText() : null;
-                roomId = dataNode.has("roomId") ? dataNode.get("roomId").asText() : null;
-            } else {
-                // Direct message format
-                content = jsonNode.has("content") ? jsonNode.get("content").asText() : null;
-                recipientUsername = jsonNode.has("recipient") ? jsonNode.get("recipient").asText() : null;
-                roomId = jsonNode.has("roomId") ? jsonNode.get("roomId").asText() : null;
-            }
+            JsonNode fields = jsonNode.has("data") && jsonNode.get("data").isObject() ? jsonNode.get("data") : jsonNode;
+            String content = fields.hasNonNull("content") ? fields.get("content").asText() : null;
+            String recipientUsername = fields.hasNonNull("recipient") ? fields.get("recipient").asText() : null;
+            String roomId = fields.hasNonNull("roomId") ? fields.get("roomId").asText() : null;
+            // Set when the client already stored the message through the REST endpoint
+            Long messageId = fields.hasNonNull("messageId") ? fields.get("messageId").asLong() : null;
+            // Echoed back in the acknowledgement so the client can match its pending message
+            String clientMessageId = fields.hasNonNull("clientMessageId") ? fields.get("clientMessageId").asText() : null;
             
             // Validate required fields
             if (content == null || content.trim().isEmpty()) {
                 sendErrorMessage(session, "Message content is required");
                 return;
-            }            // Create message object in format expected by frontend
-            String messageData = objectMapper.writeValueAsString(Map.of(
-                "type", "message",
-                "id", System.currentTimeMillis(), // Temporary ID for real-time message
-                "roomId", roomId != null ? Long.parseLong(roomId) : 0,
-                "senderId", userRepository.findByUsername(username).getId(),
-                "content", content,
-                "messageType", "TEXT",
-                "createdDate", java.time.LocalDateTime.now().toString(),
-                "sender", Map.of(
-                    "id", userRepository.findByUsername(username).getId(),
-                    "username", username,
-                    "displayName", userRepository.findByUsername(username).getUserData() != null ? 
-                        userRepository.findByUsername(username).getUserData().getDisplayName() : username
-                )
-            ));
+            }
+
+            if (recipientUsername == null && roomId != null) {
+                Long roomIdLong = Long.parseLong(roomId);
+                if (!roomMembershipCache.getMemberIds(roomIdLong).contains(principal.userId())) {
+                    sendErrorMessage(session, "User not in chat room");
+                    return;
+                }
+                if (messageId != null) {
+                    // Already persisted through REST: only relay a message this user stored in this room
+                    if (!messageRepository.existsByIdAndChatRoomIdAndSenderId(messageId, roomIdLong, principal.userId())) {
+                        sendErrorMessage(session, "Message not found");
+                        return;
+                    }
+                    String frame = createChatFrame(principal, messageId, roomIdLong, content, ZonedDateTime.now(ZoneOffset.UTC));
+                    broadcastToRoom(frame, roomIdLong, principal.userId());
+                    storeForOfflineMembers(roomIdLong, principal.userId(), frame);
+                } else {
+                    persistAndBroadcast(session, principal, roomIdLong, content, clientMessageId);
+                }
+                logger.info("Chat message from {} to room:{}: {}", username, roomId, content);
+                return;
+            }
 
             if (recipientUsername != null) {
-                // Direct message to specific user
-                WebSocketSession recipientSession = userSessions.get(recipientUsername);
-                if (recipientSession != null && recipientSession.isOpen()) {
-                    recipientSession.sendMessage(new TextMessage(messageData));
+                // Direct messages have no room row, so they are relayed without being stored
+                String messageData = createChatFrame(principal, messageId != null ? messageId : System.currentTimeMillis(),
+                    0L, content, ZonedDateTime.now(ZoneOffset.UTC));
+                if (isConnectedAnywhere(recipientUsername)) {
+                    deliverToUser(recipientUsername, messageData);
+                } else {
+                    User recipient = userRepository.findByUsername(recipientUsername);
+                    if (recipient != null) {
+                        offlineInbox.store(List.of(recipient.getId()), messageData);
+                    }
                 }
                 // Also send back to sender for confirmation
-                sendMessage(session, messageData);            } else if (roomId != null) {
-                // Broadcast to users in the specific room only
-                try {
-                    Long roomIdLong = Long.parseLong(roomId);
-                    broadcastToRoom(messageData, roomIdLong, username);
-                } catch (NumberFormatException e) {
-                    logger.error("Invalid roomId format: {}", roomId);
-                    sendErrorMessage(session, "Invalid room ID");
-                    return;
-                }
+                sendMessage(session, messageData);
+                logger.info("Chat message from {} to {}: {}", username, recipientUsername, content);
             }
 
-            logger.info("Chat message from {} to {}: {}", username, 
-                       recipientUsername != null ? recipientUsername : "room:" + roomId, content);
-                       
+        } catch (NumberFormatException e) {
+            sendErrorMessage(session, "Invalid room ID");
         } catch (Exception e) {
             logger.error("Error handling chat message", e);
             sendErrorMessage(session, "Error sending message");
         }
     }
 
+    /**
+     * Hand a room message to the batched writer; once it has an id, deliver it to the room
+     * and acknowledge the sender, in the room's id order
+     */
+    private void persistAndBroadcast(WebSocketSession session, SessionPrincipal principal, Long roomId,
+                                     String content, String clientMessageId) {
+        ZonedDateTime timestamp = ZonedDateTime.now(ZoneOffset.UTC);
+        chatMessageWriter.submit(roomId, principal.userId(), content, timestamp).whenComplete((id, error) -> {
+            if (error != null) {
+                logger.error("Failed to persist chat message from {} to room {}", principal.username(), roomId, error);
+                deliver(session, createChatAck(clientMessageId, null, roomId, null));
+                return;
+            }
+            String frame = createChatFrame(principal, id, roomId, content, timestamp);
+            String ack = createChatAck(clientMessageId, id, roomId, timestamp);
+            deliverInRoomOrder(roomId, () -> {
+                broadcastToRoom(frame, roomId, principal.userId());
+                trySend(session, ack);
+                storeForOfflineMembers(roomId, principal.userId(), frame);
+            });
+        });
+    }
+
+    // Runs deliveries for one room one after another on the websocket executor; rooms proceed in parallel
+    private void deliverInRoomOrder(Long roomId, Runnable delivery) {
+        Runnable guarded = () -> {
+            try {
+                delivery.run();
+            } catch (Exception e) {
+                logger.error("Error delivering to room {}", roomId, e);
+            }
+        };
+        CompletableFuture<Void> tail = roomDeliveryChains.compute(roomId, (id, previous) ->
+            previous != null ? previous.thenRunAsync(guarded, websocketExecutor)
+                : CompletableFuture.runAsync(guarded, websocketExecutor));
+        tail.whenComplete((ignored, error) -> roomDeliveryChains.remove(roomId, tail));
+    }
+
+    // Message object in the format expected by the frontend
+    private String createChatFrame(SessionPrincipal principal, Long id, Long roomId, String content, ZonedDateTime timestamp) {
+        try {
+            return objectMapper.writeValueAsString(Map.of(
+                "type", "message",
+                "id", id,
+                "roomId", roomId,
+                "senderId", principal.userId(),
+                "content", content,
+                "messageType", "TEXT",
+                "createdDate", timestamp.format(DATE_FORMAT),
+                "sender", Map.of(
+                    "id", principal.userId(),
+                    "username", principal.username(),
+                    "displayName", principal.displayName()
+                )
+            ));
+        } catch (Exception e) {
+            logger.error("Error creating chat frame", e);
+            return createMessage("error", "error", "Failed to create message");
+        }
+    }
+
+    private String createChatAck(String clientMessageId, Long id, Long roomId, ZonedDateTime timestamp) {
+        Map<String, Object> ack = new HashMap<>();
+        ack.put("type", "message_ack");
+        ack.put("status", id != null ? "success" : "error");
+        ack.put("clientMessageId", clientMessageId);
+        ack.put("id", id);
+        ack.put("roomId", roomId);
+        ack.put("createdDate", timestamp != null ? timestamp.format(DATE_FORMAT) : null);
+        ack.put("timestamp", System.currentTimeMillis());
+        try {
+            return objectMapper.writeValueAsString(ack);
+        } catch (Exception e) {
+            logger.error("Error creating message acknowledgement", e);
+            return createMessage("error", "error", "Failed to create message");
+        }
+    }
+
     private void handleTypingIndicator(WebSocketSession session, JsonNode jsonNode) throws IOException {
-        String username = sessionToUser.get(session.getId());
-        if (username == null) {
+        SessionPrincipal principal = principalOf(session);
+        if (principal == null) {
             sendErrorMessage(session, "Not authenticated");
             return;
         }
 
         try {
-            String recipientUsername = jsonNode.has("recipient") ? jsonNode.get("recipient").asText() : null;
+            typingEventsReceived.incrementAndGet();
             boolean isTyping = jsonNode.get("isTyping").asBoolean();
+            String roomId = jsonNode.hasNonNull("roomId") ? jsonNode.get("roomId").asText() : null;
 
-            String typingData = objectMapper.writeValueAsString(Map.of(
-                "type", "typing",
-                "user", username,
-                "isTyping", isTyping,
-                "timestamp", System.currentTimeMillis()
-            ));
-
-            if (recipientUsername != null) {
-                WebSocketSession recipientSession = userSessions.get(recipientUsername);
-                if (recipientSession != null && recipientSession.isOpen()) {
-                    recipientSession.sendMessage(new TextMessage(typingData));
+            if (roomId != null) {
+                Long roomIdLong = Long.parseLong(roomId);
+                // Only members can type in a room, and only start/stop transitions go out
+                if (roomMembershipCache.getMemberIds(roomIdLong).contains(principal.userId())
+                        && typingTracker.update(principal.userId(), roomIdLong, isTyping, System.currentTimeMillis())) {
+                    sendTypingToRoom(principal, roomIdLong, isTyping);
                 }
-            } else {
-                // Broadcast typing indicator to all users
-                broadcastMessage(typingData, username);
+                return;
             }
 
+            // Direct typing indicator without a room; room-less broadcasts are no longer sent
+            String recipientUsername = jsonNode.hasNonNull("recipient") ? jsonNode.get("recipient").asText() : null;
+            if (recipientUsername != null
+                    && directTypingTracker.update(principal.userId(), recipientUsername, isTyping, System.currentTimeMillis())) {
+                sendTypingToUser(principal, recipientUsername, isTyping);
+            }
+        } catch (NumberFormatException e) {
+            sendErrorMessage(session, "Invalid room ID");
         } catch (Exception e) {
             logger.error("Error handling typing indicator", e);
         }
     }
 
+    private void sendTypingToRoom(SessionPrincipal principal, Long roomId, boolean isTyping) {
+        String frame = createTypingFrame(principal, roomId, isTyping);
+        typingFramesSent.addAndGet(broadcastToRoom(frame, roomId, principal.userId()));
+    }
+
+    private void sendTypingToUser(SessionPrincipal principal, String recipientUsername, boolean isTyping) {
+        deliverToUser(recipientUsername, createTypingFrame(principal, null, isTyping));
+        typingFramesSent.incrementAndGet();
+    }
+
+    private String createTypingFrame(SessionPrincipal principal, Long roomId, boolean isTyping) {
+        Map<String, Object> frame = new HashMap<>();
+        frame.put("type", "typing");
+        frame.put("user", principal.username());
+        frame.put("userId", principal.userId());
+        frame.put("userName", principal.displayName());
+        frame.put("roomId", roomId);
+        frame.put("isTyping", isTyping);
+        frame.put("timestamp", System.currentTimeMillis());
+        try {
+            return objectMapper.writeValueAsString(frame);
+        } catch (Exception e) {
+            logger.error("Error creating typing frame", e);
+            return createMessage("error", "error", "Failed to create message");
+        }
+    }
+
+    /**
+     * Report users who went quiet without sending isTyping=false - runs every second by default
+     */
+    @Scheduled(fixedDelayString = "${websocket.typing.sweep-interval-ms:1000}")
+    public void expireTypingIndicators() {
+        long now = System.currentTimeMillis();
+        for (TypingIndicatorTracker.Transition<Long> stopped : typingTracker.expire(now, typingTimeoutMs)) {
+            SessionPrincipal principal = presence.get(stopped.userId());
+            if (principal != null) {
+                sendTypingToRoom(principal, stopped.target(), false);
+            }
+        }
+        for (TypingIndicatorTracker.Transition<String> stopped : directTypingTracker.expire(now, typingTimeoutMs)) {
+            SessionPrincipal principal = presence.get(stopped.userId());
+            if (principal != null) {
+                sendTypingToUser(principal, stopped.target(), false);
+            }
+        }
+    }
+
     private void handleNotification(WebSocketSession session, JsonNode jsonNode) throws IOException {
         String username = sessionToUser.get(session.getId());
         if (username == null) {
@@ -245,10 +502,7 @@ public class WebSocketHandler extends TextWebSocketHandler {
             ));
 
             if (targetUser != null) {
-                WebSocketSession targetSession = userSessions.get(targetUser);
-                if (targetSession != null && targetSession.isOpen()) {
-                    targetSession.sendMessage(new TextMessage(notificationData));
-                }
+                deliverToUser(targetUser, notificationData);
             } else {
                 // Broadcast notification to all users
                 broadcastMessage(notificationData, username);
@@ -262,87 +516,379 @@ public class WebSocketHandler extends TextWebSocketHandler {
         }
     }
 
-    private void handlePing(WebSocketSession session) throws IOException {
-        sendMessage(session, createMessage("pong", "success", "pong"));
-    }    private void broadcastUserStatus(String username, String status) {
+    /**
+     * Send the user's offline inbox in sequence order, then an offline_sync frame with the last sequence.
+     * Clients that send lastSeenSeq confirm entries themselves (on the next authenticate or with offline_ack),
+     * so a drain cut short by a disconnect resumes where it stopped. Older clients get each entry once.
+     */
+    private void drainOfflineInbox(WebSocketSession session, Integer userId, Long lastSeenSeq) {
         try {
-            // Get user ID from username
-            User user = userRepository.findByUsername(username);
-            if (user == null) {
-                logger.warn("User not found for status broadcast: {}", username);
+            if (lastSeenSeq != null) {
+                offlineInbox.acknowledge(userId, lastSeenSeq);
+            }
+            long lastSeq = sendOfflineEntries(session, userId, lastSeenSeq != null ? lastSeenSeq : 0L,
+                lastSeenSeq == null, true);
+            if (lastSeq < 0) {
                 return;
             }
-              // Check user's privacy setting - only broadcast if they allow showing online status
-            UserSettings userSettings = userSettingsRepository.findByUserId(user.getId()).orElse(null);
-            if (userSettings != null && userSettings.getShowOnlineStatus() != null && !userSettings.getShowOnlineStatus()) {
-                logger.debug("User {} has disabled online status visibility, skipping broadcast", username);
+            // A sender that checked presence just before this user came online (here or on another
+            // node) may still be storing into the inbox; pick those up once presence has propagated
+            CompletableFuture.runAsync(() -> recheckOfflineInbox(session, userId, lastSeq, lastSeenSeq == null),
+                CompletableFuture.delayedExecutor(offlineRecheckDelayMs, TimeUnit.MILLISECONDS, websocketExecutor));
+        } catch (Exception e) {
+            logger.error("Error draining offline inbox for user {}", userId, e);
+        }
+    }
+
+    private void recheckOfflineInbox(WebSocketSession session, Integer userId, long afterSeq, boolean acknowledge) {
+        try {
+            if (session.isOpen()) {
+                sendOfflineEntries(session, userId, afterSeq, acknowledge, false);
+            }
+        } catch (Exception e) {
+            logger.error("Error re-checking offline inbox for user {}", userId, e);
+        }
+    }
+
+    /**
+     * Send the entries after afterSeq, each tagged with its offlineSeq, then an offline_sync frame
+     * (skipped when there was nothing to send, unless alwaysSync)
+     * @return the last sequence sent, or -1 if the session stopped accepting frames
+     */
+    private long sendOfflineEntries(WebSocketSession session, Integer userId, long afterSeq,
+                                    boolean acknowledge, boolean alwaysSync) throws IOException {
+        OfflineInbox.Pending pending = offlineInbox.pending(userId, afterSeq);
+        if (pending.entries().isEmpty() && !alwaysSync) {
+            return afterSeq;
+        }
+        long lastSeq = afterSeq;
+        for (OfflineInbox.Entry entry : pending.entries()) {
+            ObjectNode frame = (ObjectNode) objectMapper.readTree(entry.frame());
+            frame.put("offlineSeq", entry.seq());
+            if (!trySend(session, objectMapper.writeValueAsString(frame))) {
+                return -1;
+            }
+            lastSeq = entry.seq();
+        }
+
+        Map<String, Object> sync = new HashMap<>();
+        sync.put("type", "offline_sync");
+        sync.put("lastSeq", lastSeq);
+        sync.put("count", pending.entries().size());
+        // Entries beyond the bound were dropped; the client should reload room history
+        sync.put("truncated", pending.truncated());
+        sync.put("timestamp", System.currentTimeMillis());
+        trySend(session, objectMapper.writeValueAsString(sync));
+
+        // Clients that sent no lastSeenSeq can't acknowledge on reconnect, so acknowledge on send
+        if (acknowledge && !pending.entries().isEmpty()) {
+            offlineInbox.acknowledge(userId, lastSeq);
+        }
+        return lastSeq;
+    }
+
+    private void handleOfflineAck(WebSocketSession session, JsonNode jsonNode) throws IOException {
+        SessionPrincipal principal = principalOf(session);
+        if (principal == null) {
+            sendErrorMessage(session, "Not authenticated");
+            return;
+        }
+        if (!jsonNode.hasNonNull("seq")) {
+            sendErrorMessage(session, "seq is required");
+            return;
+        }
+        long seq = jsonNode.get("seq").asLong();
+        websocketExecutor.execute(() -> offlineInbox.acknowledge(principal.userId(), seq));
+    }
+
+    // Room members with no session on any node get the frame in their offline inbox
+    private void storeForOfflineMembers(Long roomId, Integer senderId, String frame) {
+        List<Integer> offline = new ArrayList<>();
+        for (Integer memberId : roomMembershipCache.getMemberIds(roomId)) {
+            if (!memberId.equals(senderId) && !presence.containsKey(memberId) && !remotePresence.containsKey(memberId)) {
+                offline.add(memberId);
+            }
+        }
+        offlineInbox.store(offline, frame);
+    }
+
+    private boolean isConnectedAnywhere(String username) {
+        return userSessions.containsKey(username) || remoteUserIdsByUsername.containsKey(username);
+    }
+
+    private void handlePing(WebSocketSession session) throws IOException {
+        sendMessage(session, createMessage("pong", "success", "pong"));
+    }    private void broadcastUserStatus(SessionPrincipal principal, String status) {
+        broadcastUserStatus(principal, status, true);
+    }
+
+    // deliverLocally false only publishes to the other nodes (presence re-announcement)
+    private void broadcastUserStatus(SessionPrincipal principal, String status, boolean deliverLocally) {
+        try {
+            // Check user's privacy setting - only broadcast if they allow showing online status
+            if (!principal.showOnlineStatus()) {
+                logger.debug("User {} has disabled online status visibility, skipping broadcast", principal.username());
+                // Other nodes still need to know the user is connected, without a frame to show
+                realtimeBroker.publish(RealtimeEnvelope.presence(realtimeBroker.nodeId(), principal.userId(),
+                    principal.username(), "online".equals(status), null));
                 return;
             }
             
             // Create proper status data structure
             Map<String, Object> statusData = Map.of(
-                "userId", user.getId(),
-                "username", username,
+                "userId", principal.userId(),
+                "username", principal.username(),
                 "isOnline", "online".equals(status),
                 "presence", status
             );
             
+            // Only friends and followers who are online get the frame
             String statusMessage = createMessage("userStatus", status, statusData);
-            broadcastMessage(statusMessage, username);
+            if (deliverLocally) {
+                forEachConnected(principal.audienceIds(),
+                    recipient -> deliver(userSessions.get(recipient.username()), statusMessage));
+            }
+            realtimeBroker.publish(RealtimeEnvelope.presence(realtimeBroker.nodeId(), principal.userId(),
+                principal.username(), "online".equals(status), statusMessage));
         } catch (Exception e) {
             logger.error("Error broadcasting user status", e);
         }
     }
 
-    private void broadcastToRoom(String message, Long roomId, String excludeUser) {
+    /**
+     * Deliver to the room's members connected here, and publish for the other nodes
+     * only when some member is not connected here
+     * @return number of local sessions the message was queued for
+     */
+    private int broadcastToRoom(String message, Long roomId, Integer excludeUserId) {
         try {
-            // Get all users in the room from the database
-            List<RoomUser> roomUsers = roomUserRepository.findByChatRoomId(roomId);
-            
-            logger.info("Broadcasting message to room {} with {} participants", roomId, roomUsers.size());
-            
-            // Send message to each user in the room (excluding the sender)
-            roomUsers.parallelStream()
-                .map(roomUser -> roomUser.getUser().getUsername())
-                .filter(username -> !username.equals(excludeUser))
-                .forEach(username -> {
-                    WebSocketSession session = userSessions.get(username);
-                    if (session != null && session.isOpen()) {
-                        try {
-                            session.sendMessage(new TextMessage(message));
-                            logger.debug("Sent message to user {} in room {}", username, roomId);
-                        } catch (IOException e) {
-                            logger.error("Error sending message to user {} in room {}", username, roomId, e);
-                        }
-                    } else {
-                        logger.debug("User {} not connected or session closed", username);
-                    }
-                });
-                
+            int delivered = deliverToRoomLocally(message, roomId, excludeUserId);
+            boolean memberOnOtherNode = roomMembershipCache.getMemberIds(roomId).stream()
+                .anyMatch(memberId -> !memberId.equals(excludeUserId) && remotePresence.containsKey(memberId));
+            if (memberOnOtherNode) {
+                realtimeBroker.publish(RealtimeEnvelope.toRoom(realtimeBroker.nodeId(), roomId, excludeUserId, message));
+            }
+            return delivered;
         } catch (Exception e) {
             logger.error("Error broadcasting message to room {}", roomId, e);
+            return 0;
+        }
+    }
+
+    private int deliverToRoomLocally(String message, Long roomId, Integer excludeUserId) {
+        // Member ids come from the membership cache; only connected members are resolved to sessions
+        Set<Integer> memberIds = roomMembershipCache.getMemberIds(roomId);
+        logger.debug("Broadcasting message to room {} with {} participants", roomId, memberIds.size());
+
+        // Queue the message for each connected user in the room (excluding the sender)
+        int delivered = 0;
+        for (Integer memberId : memberIds) {
+            SessionPrincipal member = presence.get(memberId);
+            if (member != null && !memberId.equals(excludeUserId)) {
+                deliver(userSessions.get(member.username()), message);
+                delivered++;
+            }
         }
+        return delivered;
     }
 
     private void broadcastMessage(String message, String excludeUser) {
-        userSessions.entrySet().parallelStream()
-            .filter(entry -> !entry.getKey().equals(excludeUser))
-            .forEach(entry -> {
-                try {
-                    WebSocketSession session = entry.getValue();
-                    if (session.isOpen()) {
-                        session.sendMessage(new TextMessage(message));
+        deliverToAllLocally(message, excludeUser);
+        realtimeBroker.publish(RealtimeEnvelope.broadcast(realtimeBroker.nodeId(), excludeUser, message));
+    }
+
+    private void deliverToAllLocally(String message, String excludeUser) {
+        userSessions.forEach((username, session) -> {
+            if (!username.equals(excludeUser)) {
+                deliver(session, message);
+            }
+        });
+    }
+
+    // Send on the local session if there is one, otherwise the user may be connected to another node
+    private void deliverToUser(String username, String message) {
+        WebSocketSession session = userSessions.get(username);
+        if (session != null) {
+            deliver(session, message);
+        } else {
+            realtimeBroker.publish(RealtimeEnvelope.toUser(realtimeBroker.nodeId(), username, message));
+        }
+    }
+
+    /**
+     * Deliver an envelope published by another node to the recipients connected here
+     */
+    private void onRemoteEnvelope(RealtimeEnvelope envelope) {
+        if (realtimeBroker.nodeId().equals(envelope.originNodeId())) {
+            return;
+        }
+        if (remoteNodesLastSeen.put(envelope.originNodeId(), System.currentTimeMillis()) == null) {
+            // A node we haven't seen (new, or back after being evicted) needs to learn who is connected here
+            logger.info("Realtime node {} joined, re-announcing local presence", envelope.originNodeId());
+            websocketExecutor.execute(this::announceLocalPresence);
+        }
+        try {
+            switch (envelope.kind()) {
+                case USER:
+                    deliver(userSessions.get(envelope.username()), envelope.frame());
+                    break;
+                case USER_ID:
+                    SessionPrincipal recipient = presence.get(envelope.userId());
+                    if (recipient != null) {
+                        deliver(userSessions.get(recipient.username()), envelope.frame());
+                    }
+                    break;
+                case ROOM:
+                    deliverToRoomLocally(envelope.frame(), envelope.roomId(), envelope.userId());
+                    break;
+                case PRESENCE:
+                    // Re-announcements and stale offlines from a node the user already left carry no news
+                    boolean changed;
+                    if (Boolean.TRUE.equals(envelope.online())) {
+                        RemotePresence previous = putRemotePresence(envelope.userId(),
+                            new RemotePresence(envelope.username(), envelope.frame() != null, envelope.originNodeId()));
+                        changed = previous == null || previous.visible() != (envelope.frame() != null);
+                    } else {
+                        changed = removeRemotePresence(envelope.userId(), envelope.originNodeId()) != null;
+                    }
+                    if (envelope.frame() == null || !changed) {
+                        break;
+                    }
+                    // Watching the user is the same relation as being in their audience
+                    for (Integer watcherId : localWatchers.getOrDefault(envelope.userId(), Set.of())) {
+                        SessionPrincipal watcher = presence.get(watcherId);
+                        if (watcher != null && watcher.watchedIds().contains(envelope.userId())) {
+                            deliver(userSessions.get(watcher.username()), envelope.frame());
+                        }
+                    }
+                    break;
+                case BROADCAST:
+                    deliverToAllLocally(envelope.frame(), envelope.username());
+                    break;
+                case HEARTBEAT:
+                case ROOM_MEMBERS:
+                    // ROOM_MEMBERS is applied by RoomMembershipCache
+                    break;
+            }
+        } catch (Exception e) {
+            logger.error("Error delivering {} envelope from node {}", envelope.kind(), envelope.originNodeId(), e);
+        }
+    }
+
+    private RemotePresence putRemotePresence(Integer userId, RemotePresence remote) {
+        RemotePresence previous = remotePresence.put(userId, remote);
+        if (previous != null && !previous.username().equals(remote.username())) {
+            remoteUserIdsByUsername.remove(previous.username(), userId);
+        }
+        remoteUserIdsByUsername.put(remote.username(), userId);
+        return previous;
+    }
+
+    // nodeId limits the removal to an entry announced by that node; null removes it regardless
+    private RemotePresence removeRemotePresence(Integer userId, String nodeId) {
+        RemotePresence removed = remotePresence.get(userId);
+        if (removed == null || (nodeId != null && !nodeId.equals(removed.nodeId()))
+                || !remotePresence.remove(userId, removed)) {
+            return null;
+        }
+        remoteUserIdsByUsername.remove(removed.username(), userId);
+        return removed;
+    }
+
+    // One presence envelope per local user, as on connect; receivers that already knew skip the frame
+    private void announceLocalPresence() {
+        for (SessionPrincipal principal : presence.values()) {
+            broadcastUserStatus(principal, "online", false);
+        }
+    }
+
+    /**
+     * Tell the other nodes this one is alive, and drop the users of nodes that went silent
+     * (crashed or partitioned without announcing their users offline) - runs every 10s by default
+     */
+    @Scheduled(fixedDelayString = "${websocket.broker.heartbeat-interval-ms:10000}")
+    public void heartbeatAndExpireNodes() {
+        realtimeBroker.publish(RealtimeEnvelope.heartbeat(realtimeBroker.nodeId()));
+        long cutoff = System.currentTimeMillis() - nodeTimeoutMs;
+        for (Map.Entry<String, Long> node : remoteNodesLastSeen.entrySet()) {
+            if (node.getValue() < cutoff && remoteNodesLastSeen.remove(node.getKey(), node.getValue())) {
+                int evicted = 0;
+                for (Map.Entry<Integer, RemotePresence> remote : remotePresence.entrySet()) {
+                    if (node.getKey().equals(remote.getValue().nodeId())
+                            && removeRemotePresence(remote.getKey(), node.getKey()) != null) {
+                        evicted++;
                     }
-                } catch (IOException e) {
-                    logger.error("Error broadcasting message to user {}", entry.getKey(), e);
                 }
-            });
+                logger.warn("Realtime node {} silent for over {}ms, dropped {} remote users", node.getKey(), nodeTimeoutMs, evicted);
+            }
+        }
+    }
+
+    /**
+     * Fan-out send: queue the message on the session's outbox and return. The socket write happens on
+     * the websocket executor, one drain at a time per session, so each session sees frames in call
+     * order and a slow socket never holds up the caller.
+     */
+    private void deliver(WebSocketSession session, String message) {
+        if (session != null) {
+            trySend(session, message);
+        }
     }
 
+    // Reply on the session that sent the request
     private void sendMessage(WebSocketSession session, String message) throws IOException {
-        if (session.isOpen()) {
-            session.sendMessage(new TextMessage(message));
+        trySend(session, message);
+    }
+
+    // Queue on the session's outbox; false if the session is gone or was just closed as too slow
+    private boolean trySend(WebSocketSession session, String message) {
+        SessionOutbox outbox = outboundSessions.get(session.getId());
+        if (outbox == null) {
+            return false;
         }
+        SessionOutbox.Result result = outbox.offer(message);
+        if (result == SessionOutbox.Result.OVERFLOWED) {
+            overflowedSessions.incrementAndGet();
+        }
+        return result == SessionOutbox.Result.QUEUED;
+    }
+
+    /**
+     * Outbound queue depth per authenticated session plus overflow/failure totals
+     */
+    public Map<String, Object> getSendQueueStats() {
+        List<Map<String, Object>> sessions = new ArrayList<>();
+        long bufferedBytes = 0;
+        for (Map.Entry<String, WebSocketSession> entry : userSessions.entrySet()) {
+            SessionOutbox outbox = outboundSessions.get(entry.getValue().getId());
+            if (outbox != null) {
+                Map<String, Object> session = new HashMap<>();
+                session.put("username", entry.getKey());
+                session.put("bufferedBytes", outbox.getBufferedBytes());
+                session.put("sendInProgressMs", outbox.getTimeSinceSendStarted());
+                sessions.add(session);
+                bufferedBytes += outbox.getBufferedBytes();
+            }
+        }
+        sessions.sort((a, b) -> Integer.compare((Integer) b.get("bufferedBytes"), (Integer) a.get("bufferedBytes")));
+
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("sessions", sessions);
+        stats.put("openSessions", outboundSessions.size());
+        stats.put("bufferedBytes", bufferedBytes);
+        stats.put("bufferSizeLimit", sendBufferSizeLimit);
+        stats.put("sendTimeLimitMs", sendTimeLimitMs);
+        stats.put("overflowStrategy", overflowStrategy.name());
+        stats.put("overflowedSessions", overflowedSessions.get());
+        stats.put("failedSends", failedSends.get());
+        stats.put("typingActive", typingTracker.activeCount() + directTypingTracker.activeCount());
+        stats.put("typingEventsReceived", typingEventsReceived.get());
+        stats.put("typingFramesSent", typingFramesSent.get());
+        stats.put("remoteOnlineUsers", remotePresence.size());
+        stats.put("remoteNodes", remoteNodesLastSeen.size());
+        stats.put("broker", realtimeBroker.getStats());
+        stats.put("offlineInbox", offlineInbox.getStats());
+        return stats;
     }
 
     private void sendErrorMessage(WebSocketSession session, String error) throws IOException {
@@ -388,33 +934,66 @@ public class WebSocketHandler extends TextWebSocketHandler {
     }
 
     private void cleanupSession(WebSocketSession session) {
+        SessionOutbox outbox = outboundSessions.remove(session.getId());
+        if (outbox != null) {
+            outbox.discard();
+        }
         String username = sessionToUser.remove(session.getId());
         if (username != null) {
-            userSessions.remove(username);
+            // A newer session of the same user may already have replaced this one - leave it connected
+            if (!userSessions.remove(username, session)) {
+                logger.info("Closed superseded session for user: {}", username);
+                return;
+            }
             logger.info("Cleaned up session for user: {}", username);
             
             // Notify other users that this user is offline
-            broadcastUserStatus(username, "offline");
+            SessionPrincipal principal = principalOf(session);
+            if (principal != null) {
+                // Clear typing state in every room and conversation before leaving the presence index
+                typingTracker.clearUser(principal.userId())
+                    .forEach(stopped -> sendTypingToRoom(principal, stopped.target(), false));
+                directTypingTracker.clearUser(principal.userId())
+                    .forEach(stopped -> sendTypingToUser(principal, stopped.target(), false));
+                SessionPrincipal removed = presence.remove(principal.userId());
+                if (removed != null) {
+                    unindexWatcher(removed);
+                }
+                broadcastUserStatus(principal, "offline");
+            }
         }
     }
 
     // Public method to send notifications from other parts of the application
     public void sendNotificationToUser(String username, String notificationType, String content) {
-        WebSocketSession session = userSessions.get(username);
-        if (session != null && session.isOpen()) {
-            try {
-                String notificationData = objectMapper.writeValueAsString(Map.of(
-                    "type", "notification",
-                    "notificationType", notificationType,
-                    "content", content,
-                    "timestamp", System.currentTimeMillis()
-                ));
-                session.sendMessage(new TextMessage(notificationData));
-                logger.info("Sent notification to {}: {}", username, content);
-            } catch (IOException e) {
-                logger.error("Error sending notification to user {}", username, e);
-            }
+        try {
+            String notificationData = objectMapper.writeValueAsString(Map.of(
+                "type", "notification",
+                "notificationType", notificationType,
+                "content", content,
+                "timestamp", System.currentTimeMillis()
+            ));
+            deliverToUser(username, notificationData);
+            logger.info("Sent notification to {}: {}", username, content);
+        } catch (IOException e) {
+            logger.error("Error sending notification to user {}", username, e);
+        }
+    }
+
+    /**
+     * Push a stored notification to the recipient's live session
+     * @return true if the user was connected here and the message was queued for them
+     */
+    public boolean pushNotification(Integer userId, Object notification) {
+        SessionPrincipal principal = presence.get(userId);
+        WebSocketSession session = principal != null ? userSessions.get(principal.username()) : null;
+        String frame = createMessage("notification", "created", notification);
+        if (session == null) {
+            // Not connected here; the node holding the user's session (if any) delivers it
+            realtimeBroker.publish(RealtimeEnvelope.toUserId(realtimeBroker.nodeId(), userId, frame));
+            return false;
         }
+        return trySend(session, frame);
     }
 
     // Public method to check if user is online
@@ -432,39 +1011,31 @@ public class WebSocketHandler extends TextWebSocketHandler {
 
     private void handleStatusRequest(WebSocketSession session) throws IOException {
         try {
-            String username = getUsernameFromSession(session);
-            if (username == null) {
+            SessionPrincipal requester = principalOf(session);
+            if (requester == null) {
                 sendErrorMessage(session, "User not authenticated");
                 return;
             }
+            String username = requester.username();
 
-            // Get list of currently online users
+            // Online friends and followed users, straight from the presence index
             List<Map<String, Object>> onlineUsers = new ArrayList<>();
             
-            for (Map.Entry<String, WebSocketSession> entry : userSessions.entrySet()) {
-                String onlineUsername = entry.getKey();
-                WebSocketSession onlineSession = entry.getValue();
-                  // Only include if session is open and not the requesting user
-                if (onlineSession.isOpen() && !onlineUsername.equals(username)) {
-                    try {
-                        User user = userRepository.findByUsername(onlineUsername);
-                        if (user != null) {                            // Check user's privacy setting - only include if they allow showing online status
-                            UserSettings userSettings = userSettingsRepository.findByUserId(user.getId()).orElse(null);
-                            if (userSettings != null && userSettings.getShowOnlineStatus() != null && !userSettings.getShowOnlineStatus()) {
-                                continue; // Skip this user if they've disabled online status visibility
-                            }
-                            
-                            Map<String, Object> userStatus = Map.of(
-                                "userId", user.getId(),
-                                "username", onlineUsername,
-                                "isOnline", true,
-                                "presence", "online" // Default presence
-                            );
-                            onlineUsers.add(userStatus);
-                        }
-                    } catch (Exception e) {
-                        logger.warn("Error getting user info for {}: {}", onlineUsername, e.getMessage());
-                    }
+            for (Integer watchedId : watchedCandidates(requester.watchedIds())) {
+                SessionPrincipal principal = presence.get(watchedId);
+                // Skip users who have disabled online status visibility; remote users only announce when visible
+                RemotePresence remote = principal == null ? remotePresence.get(watchedId) : null;
+                String onlineUsername = principal != null
+                    ? (principal.showOnlineStatus() ? principal.username() : null)
+                    : (remote != null && remote.visible() ? remote.username() : null);
+                if (onlineUsername != null) {
+                    Map<String, Object> userStatus = Map.of(
+                        "userId", watchedId,
+                        "username", onlineUsername,
+                        "isOnline", true,
+                        "presence", "online" // Default presence
+                    );
+                    onlineUsers.add(userStatus);
                 }
             }            // Send status response back to requesting user
             String responseMessage = objectMapper.writeValueAsString(Map.of(
@@ -473,7 +1044,7 @@ public class WebSocketHandler extends TextWebSocketHandler {
                 "timestamp", new Date().toString()
             ));
             
-            session.sendMessage(new TextMessage(responseMessage));
+            sendMessage(session, responseMessage);
             logger.info("Sent online users list to {}: {} users online", username, onlineUsers.size());
 
         } catch (Exception e) {
@@ -485,4 +1056,109 @@ public class WebSocketHandler extends TextWebSocketHandler {
     private String getUsernameFromSession(WebSocketSession session) {
         return sessionToUser.get(session.getId());
     }
+
+    private SessionPrincipal principalOf(WebSocketSession session) {
+        return (SessionPrincipal) session.getAttributes().get(PRINCIPAL_ATTRIBUTE);
+    }
+
+    // Settings and id-only relationship lookups, once per authentication or change
+    private SessionPrincipal loadPrincipal(User user) {
+        UserSettings settings = userSettingsRepository.findByUserId(user.getId()).orElse(null);
+        boolean showOnlineStatus = settings == null || settings.getShowOnlineStatus() == null || settings.getShowOnlineStatus();
+        String displayName = user.getUserData() != null && user.getUserData().getDisplayName() != null
+            ? user.getUserData().getDisplayName() : user.getUsername();
+        String profilePicture = user.getUserData() != null ? user.getUserData().getProfilePicture() : null;
+
+        List<Integer> friendIds = friendRepository.findFriendIdsByUserId(user.getId());
+        Set<Integer> audienceIds = new HashSet<>(friendIds);
+        audienceIds.addAll(followRepository.findFollowerIdsByUserId(user.getId()));
+        Set<Integer> watchedIds = new HashSet<>(friendIds);
+        watchedIds.addAll(followRepository.findFollowingIdsByUserId(user.getId()));
+
+        return new SessionPrincipal(user.getId(), user.getUsername(), displayName, profilePicture, showOnlineStatus,
+            Set.copyOf(audienceIds), Set.copyOf(watchedIds));
+    }
+
+    // Run the action for every connected user among userIds, walking whichever set is smaller
+    private void forEachConnected(Set<Integer> userIds, Consumer<SessionPrincipal> action) {
+        if (userIds.size() <= presence.size()) {
+            for (Integer userId : userIds) {
+                SessionPrincipal principal = presence.get(userId);
+                if (principal != null) {
+                    action.accept(principal);
+                }
+            }
+        } else {
+            for (SessionPrincipal principal : presence.values()) {
+                if (userIds.contains(principal.userId())) {
+                    action.accept(principal);
+                }
+            }
+        }
+    }
+
+    // Watched ids that may be online here or elsewhere, from whichever side is smaller
+    private Collection<Integer> watchedCandidates(Set<Integer> watchedIds) {
+        if (watchedIds.size() <= presence.size() + remotePresence.size()) {
+            return watchedIds;
+        }
+        Set<Integer> candidates = new HashSet<>();
+        presence.keySet().stream().filter(watchedIds::contains).forEach(candidates::add);
+        remotePresence.keySet().stream().filter(watchedIds::contains).forEach(candidates::add);
+        return candidates;
+    }
+
+    // Rebuild a connected user's principal in both the session and the presence index
+    private void refreshPrincipal(Integer userId) {
+        SessionPrincipal current = presence.get(userId);
+        WebSocketSession session = current != null ? userSessions.get(current.username()) : null;
+        if (session == null) {
+            return;
+        }
+        userRepository.findById(userId).ifPresent(user -> {
+            SessionPrincipal principal = loadPrincipal(user);
+            // Only swap in the entry we read; if the user disconnected meanwhile, don't resurrect it
+            if (presence.replace(userId, current, principal)) {
+                session.getAttributes().put(PRINCIPAL_ATTRIBUTE, principal);
+                unindexWatcher(current);
+                indexWatcher(principal);
+            }
+        });
+    }
+
+    private void indexWatcher(SessionPrincipal watcher) {
+        for (Integer watchedId : watcher.watchedIds()) {
+            localWatchers.compute(watchedId, (id, watchers) -> {
+                Set<Integer> updated = watchers != null ? watchers : ConcurrentHashMap.newKeySet();
+                updated.add(watcher.userId());
+                return updated;
+            });
+        }
+    }
+
+    private void unindexWatcher(SessionPrincipal watcher) {
+        for (Integer watchedId : watcher.watchedIds()) {
+            localWatchers.computeIfPresent(watchedId, (id, watchers) -> {
+                watchers.remove(watcher.userId());
+                return watchers.isEmpty() ? null : watchers;
+            });
+        }
+    }
+
+    /**
+     * Reload the cached principal of a connected user after their profile or settings are saved
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserProfileChanged(UserProfileChangedEvent event) {
+        refreshPrincipal(event.userId());
+    }
+
+    /**
+     * A friendship or follow changed - both sides get new presence audiences
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSocialGraphChanged(SocialGraphChangedEvent event) {
+        refreshPrincipal(event.userId1());
+        refreshPrincipal(event.userId2());
+    }
 }
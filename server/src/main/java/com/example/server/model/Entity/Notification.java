@@ -16,7 +16,8 @@ public class Notification {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @ManyToOne
+    // Only the ids of recipient/post/comment are read, so they stay unloaded proxies
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "recipient_user_id", nullable = false)
     private User recipientUser;
 
@@ -27,11 +28,11 @@ public class Notification {
     @Column(nullable = false, length = 50)
     private String type;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "post_id")
     private Post post;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "comment_id")
     private Comment comment;
 
@@ -44,6 +45,17 @@ public class Notification {
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
+    // Aggregated LIKE/COMMENT rows: how many actors, the latest few (comma-separated, newest first)
+    @Column(name = "actor_count", nullable = false)
+    private Integer actorCount = 1;
+
+    @Column(name = "recent_actor_ids")
+    private String recentActorIds;
+
+    // Start of the time bucket this grouped row covers (null for ungrouped rows)
+    @Column(name = "group_bucket")
+    private LocalDateTime groupBucket;
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) {
@@ -0,0 +1,42 @@
+package com.example.server.model.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Persistent per-user unread notification counter backing the badge count,
+ * so badge reads never COUNT(*) the notifications table.
+ */
+@Entity
+@Table(name = "notification_counters")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationCounter {
+
+    @Id
+    @Column(name = "user_id")
+    private Integer userId;
+
+    @Column(name = "unread_count", nullable = false)
+    private long unreadCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private ZonedDateTime updatedAt;
+
+    public NotificationCounter(Integer userId, long unreadCount) {
+        this.userId = userId;
+        this.unreadCount = unreadCount;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = ZonedDateTime.now(ZoneOffset.UTC);
+    }
+}
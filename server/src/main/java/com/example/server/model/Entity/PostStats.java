@@ -0,0 +1,53 @@
+package com.example.server.model.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.ZonedDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Denormalized engagement counters for a post, kept up to date by the services that
+ * write comments, reactions, bookmarks and views so feeds never load those collections.
+ */
+@Entity
+@Table(name = "post_stats")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostStats {
+
+    @Id
+    @Column(name = "post_id")
+    private Long postId;
+
+    @Column(name = "comments_count", nullable = false)
+    private long commentsCount;
+
+    @Column(name = "likes_count", nullable = false)
+    private long likesCount;
+
+    @Column(name = "dislikes_count", nullable = false)
+    private long dislikesCount;
+
+    @Column(name = "bookmarks_count", nullable = false)
+    private long bookmarksCount;
+
+    @Column(name = "views_count", nullable = false)
+    private long viewsCount;
+
+    @Column(name = "updated_at", nullable = false)
+    private ZonedDateTime updatedAt;
+
+    public PostStats(Long postId) {
+        this.postId = postId;
+    }
+
+    @PrePersist
+    @PreUpdate
+    protected void onSave() {
+        updatedAt = ZonedDateTime.now(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.server.model.Entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.ZonedDateTime;
+
+/**
+ * One post pushed into a user's home timeline (fan-out-on-write).
+ * Only ids are stored so fan-out never has to load users or posts.
+ */
+@Entity
+@Table(name = "timeline_entries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId; // Timeline owner
+
+    @Column(name = "post_id", nullable = false)
+    private Long postId;
+
+    @Column(name = "author_id", nullable = false)
+    private Integer authorId;
+
+    @Column(name = "created_date", nullable = false)
+    private ZonedDateTime createdDate; // Copy of the post's createdDate, used for ordering
+
+    public TimelineEntry(Integer userId, Long postId, Integer authorId, ZonedDateTime createdDate) {
+        this.userId = userId;
+        this.postId = postId;
+        this.authorId = authorId;
+        this.createdDate = createdDate;
+    }
+}
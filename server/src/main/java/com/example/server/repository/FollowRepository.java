@@ -2,6 +2,7 @@ package com.example.server.repository;
 
 import com.example.server.model.Entity.Follow;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -31,4 +32,36 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
     // Get all follower IDs for a user (for notifications)
     @Query("SELECT f.follower.id FROM Follow f WHERE f.following.id = :userId")
     List<Integer> findFollowerIdsByUserId(@Param("userId") Integer userId);
+    
+    // Get all ids this user follows (presence scoping)
+    @Query("SELECT f.following.id FROM Follow f WHERE f.follower.id = :userId")
+    List<Integer> findFollowingIdsByUserId(@Param("userId") Integer userId);
+    
+    // Accounts this user follows that have at least :threshold followers (timeline fan-out-on-read)
+    @Query(value = "SELECT f.following_id FROM follows f JOIN follower_counts c ON c.user_id = f.following_id " +
+           "WHERE f.follower_id = :userId AND c.followers_count >= :threshold", nativeQuery = true)
+    List<Integer> findHighFollowerFollowingIds(@Param("userId") Integer userId, @Param("threshold") long threshold);
+
+    // Maintained follower counts, so fan-out decisions never count the follows table
+    @Query(value = "SELECT COALESCE((SELECT followers_count FROM follower_counts WHERE user_id = :userId), 0)",
+           nativeQuery = true)
+    long findFollowerCount(@Param("userId") Integer userId);
+
+    @Modifying
+    @Query(value = "INSERT INTO follower_counts (user_id, followers_count) VALUES (:userId, GREATEST(:delta, 0)) " +
+           "ON CONFLICT (user_id) DO UPDATE SET followers_count = GREATEST(follower_counts.followers_count + :delta, 0)",
+           nativeQuery = true)
+    int adjustFollowerCount(@Param("userId") Integer userId, @Param("delta") long delta);
+
+    // Recount from follows; also backfills accounts that predate the table
+    @Modifying
+    @Query(value = "INSERT INTO follower_counts (user_id, followers_count) " +
+           "SELECT following_id, COUNT(*) FROM follows GROUP BY following_id " +
+           "ON CONFLICT (user_id) DO UPDATE SET followers_count = EXCLUDED.followers_count", nativeQuery = true)
+    int reconcileFollowerCounts();
+
+    @Modifying
+    @Query(value = "UPDATE follower_counts c SET followers_count = 0 WHERE c.followers_count <> 0 " +
+           "AND NOT EXISTS (SELECT 1 FROM follows f WHERE f.following_id = c.user_id)", nativeQuery = true)
+    int resetUnfollowedCounts();
 }
\ No newline at end of file
@@ -11,4 +11,5 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
     List<Message> findByChatRoomIdOrderByTimestampDesc(Long chatRoomId);
     List<Message> findByChatRoomIdOrderByTimestampAsc(Long chatRoomId);
     List<Message> findBySenderIdOrderByTimestampDesc(Integer senderId);
+    boolean existsByIdAndChatRoomIdAndSenderId(Long id, Long chatRoomId, Integer senderId);
 }
\ No newline at end of file
@@ -0,0 +1,48 @@
+package com.example.server.repository;
+
+import com.example.server.model.Entity.NotificationCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface NotificationCounterRepository extends JpaRepository<NotificationCounter, Integer> {
+
+    // Atomic counter updates - each returns the number of rows touched (0 when the counter row is missing)
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = CASE WHEN c.unreadCount + :delta < 0 THEN 0 ELSE c.unreadCount + :delta END, " +
+           "c.updatedAt = :now WHERE c.userId = :userId")
+    int incrementUnread(@Param("userId") Integer userId, @Param("delta") long delta, @Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = c.unreadCount + 1, c.updatedAt = :now WHERE c.userId IN :userIds")
+    int incrementUnreadForUsers(@Param("userIds") Collection<Integer> userIds, @Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = 0, c.updatedAt = :now WHERE c.userId = :userId")
+    int resetUnread(@Param("userId") Integer userId, @Param("now") ZonedDateTime now);
+
+    // Recount counters touched since the given time from the notifications table
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = " +
+           "(SELECT COUNT(n) FROM Notification n WHERE n.recipientUser.id = c.userId AND n.readStatus = false) " +
+           "WHERE c.updatedAt >= :since")
+    int reconcileUpdatedSince(@Param("since") ZonedDateTime since);
+
+    // Next page of counter ids for the rolling sweep (keyset on the primary key)
+    @Query(value = "SELECT user_id FROM notification_counters WHERE user_id > :afterUserId ORDER BY user_id LIMIT :limit",
+           nativeQuery = true)
+    List<Integer> findUserIdsAfter(@Param("afterUserId") Integer afterUserId, @Param("limit") int limit);
+
+    @Modifying
+    @Query("UPDATE NotificationCounter c SET c.unreadCount = " +
+           "(SELECT COUNT(n) FROM Notification n WHERE n.recipientUser.id = c.userId AND n.readStatus = false) " +
+           "WHERE c.userId IN :userIds")
+    int reconcileUsers(@Param("userIds") Collection<Integer> userIds);
+}
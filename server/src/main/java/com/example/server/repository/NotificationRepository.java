@@ -1,12 +1,21 @@
 package com.example.server.repository;
 
+import com.example.server.model.Entity.Comment;
 import com.example.server.model.Entity.Notification;
+import com.example.server.model.Entity.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import jakarta.persistence.LockModeType;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -22,6 +31,84 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     @Query("SELECT COUNT(n) FROM Notification n WHERE n.recipientUser.id = :userId AND n.readStatus = false")
     Long countUnreadByUserId(@Param("userId") Integer userId);
     
+    // Keyset (createdAt, id) pagination - actor, role and profile come back in the same query
+    @Query("SELECT n FROM Notification n JOIN FETCH n.actorUser a JOIN FETCH a.role LEFT JOIN FETCH a.userData " +
+           "WHERE n.recipientUser.id = :userId " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPage(@Param("userId") Integer userId, Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n JOIN FETCH n.actorUser a JOIN FETCH a.role LEFT JOIN FETCH a.userData " +
+           "WHERE n.recipientUser.id = :userId " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findPageBefore(@Param("userId") Integer userId,
+                                      @Param("createdAt") LocalDateTime createdAt,
+                                      @Param("id") Long id,
+                                      Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n JOIN FETCH n.actorUser a JOIN FETCH a.role LEFT JOIN FETCH a.userData " +
+           "WHERE n.recipientUser.id = :userId AND n.readStatus = false " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadPage(@Param("userId") Integer userId, Pageable pageable);
+    
+    @Query("SELECT n FROM Notification n JOIN FETCH n.actorUser a JOIN FETCH a.role LEFT JOIN FETCH a.userData " +
+           "WHERE n.recipientUser.id = :userId AND n.readStatus = false " +
+           "AND (n.createdAt < :createdAt OR (n.createdAt = :createdAt AND n.id < :id)) " +
+           "ORDER BY n.createdAt DESC, n.id DESC")
+    List<Notification> findUnreadPageBefore(@Param("userId") Integer userId,
+                                            @Param("createdAt") LocalDateTime createdAt,
+                                            @Param("id") Long id,
+                                            Pageable pageable);
+    
     // Find notifications by post ID for deletion cascade
     List<Notification> findByPostId(Long postId);
+    
+    // Set-based state changes - one statement each, returning the number of rows affected
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.readStatus = true WHERE n.recipientUser.id = :userId AND n.readStatus = false")
+    int markAllAsRead(@Param("userId") Integer userId);
+    
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.readStatus = true " +
+           "WHERE n.recipientUser.id = :userId AND n.readStatus = false AND n.createdAt <= :before")
+    int markAsReadBefore(@Param("userId") Integer userId, @Param("before") LocalDateTime before);
+    
+    // Conditional on the unread state, so concurrent callers can't both count the same transition
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.readStatus = true WHERE n.id = :id AND n.readStatus = false")
+    int markAsReadIfUnread(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.id = :id AND n.readStatus = false")
+    int deleteIfUnread(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM Notification n WHERE n.readStatus = true AND n.createdAt < :cutoff")
+    int deleteReadOlderThan(@Param("cutoff") LocalDateTime cutoff);
+    
+    // Aggregated notifications - one row per (recipient, post, type, time bucket)
+    @Query("SELECT n FROM Notification n WHERE n.recipientUser.id = :recipientId AND n.post.id = :postId " +
+           "AND n.type = :type AND n.groupBucket = :bucket")
+    Optional<Notification> findGroup(@Param("recipientId") Integer recipientId, @Param("postId") Long postId,
+                                     @Param("type") String type, @Param("bucket") LocalDateTime bucket);
+    
+    // Row lock held until the caller's transaction ends, so concurrent bumps of one group serialize
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT n FROM Notification n WHERE n.id = :id")
+    Optional<Notification> findByIdForUpdate(@Param("id") Long id);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Notification n SET n.actorCount = n.actorCount + :actorDelta, n.actorUser = :actor, " +
+           "n.comment = :comment, n.recentActorIds = :recentActorIds, n.readStatus = false, n.createdAt = :now " +
+           "WHERE n.id = :id")
+    int bumpGroup(@Param("id") Long id, @Param("actorDelta") int actorDelta, @Param("actor") User actor,
+                  @Param("comment") Comment comment, @Param("recentActorIds") String recentActorIds,
+                  @Param("now") LocalDateTime now);
+
 }
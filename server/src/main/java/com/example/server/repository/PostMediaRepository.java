@@ -1,10 +1,14 @@
 package com.example.server.repository;
 
+import com.example.server.dto.PostMediaDTO;
 import com.example.server.model.Entity.PostMedia;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,6 +16,11 @@ public interface PostMediaRepository extends JpaRepository<PostMedia, Long> {
     List<PostMedia> findByPostId(Long postId);
     List<PostMedia> findByPostIdOrderByUploadedAtAsc(Long postId);
     
+    // Media for a batch of posts in one query, projected straight to DTOs
+    @Query("SELECT new com.example.server.dto.PostMediaDTO(m.id, m.post.id, m.mediaUrl, m.mediaType, m.uploadedAt) " +
+           "FROM PostMedia m WHERE m.post.id IN :postIds ORDER BY m.uploadedAt ASC, m.id ASC")
+    List<PostMediaDTO> findMediaByPostIdIn(@Param("postIds") Collection<Long> postIds);
+    
     // Method for cascade deletion
     @Modifying
     void deleteByPostId(Long postId);
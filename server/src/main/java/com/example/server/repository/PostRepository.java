@@ -1,12 +1,16 @@
 package com.example.server.repository;
 
+import com.example.server.dto.PostCardRow;
 import com.example.server.model.Entity.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -42,6 +46,56 @@ public interface PostRepository extends JpaRepository<Post, Long> {
            "ORDER BY p.createdDate DESC")
     List<Post> findByUserIdWithDetailsOrderByCreatedDateDesc(Integer userId);
     
+    // Keyset (createdDate, id) pagination for the home feed - only ids are read here,
+    // the cards are assembled afterwards with a fixed number of set-based queries
+    @Query("SELECT p.id FROM Post p ORDER BY p.createdDate DESC, p.id DESC")
+    List<Long> findFeedPageIds(Pageable pageable);
+    
+    @Query("SELECT p.id FROM Post p " +
+           "WHERE p.createdDate < :createdDate " +
+           "OR (p.createdDate = :createdDate AND p.id < :id) " +
+           "ORDER BY p.createdDate DESC, p.id DESC")
+    List<Long> findFeedPageIdsBefore(@Param("createdDate") ZonedDateTime createdDate,
+                                     @Param("id") Long id,
+                                     Pageable pageable);
+    
+    @Query("SELECT p.id FROM Post p ORDER BY p.createdDate DESC, p.id DESC")
+    List<Long> findAllIdsOrderByCreatedDateDesc();
+    
+    @Query("SELECT p.id FROM Post p WHERE p.user.id = :userId ORDER BY p.createdDate DESC, p.id DESC")
+    List<Long> findIdsByUserIdOrderByCreatedDateDesc(@Param("userId") Integer userId);
+    
+    @Query("SELECT p.id FROM Post p WHERE p.location.id = :locationId ORDER BY p.createdDate DESC, p.id DESC")
+    List<Long> findIdsByLocationIdOrderByCreatedDateDesc(@Param("locationId") Integer locationId);
+    
+    // Flat projection of everything a post card needs except media and counters
+    @Query("SELECT new com.example.server.dto.PostCardRow(" +
+           "p.id, p.content, p.createdDate, p.updatedAt, " +
+           "u.id, u.username, ud.displayName, ud.bio, ud.profilePicture, " +
+           "t.id, t.typeName, l.id, l.location) " +
+           "FROM Post p " +
+           "JOIN p.user u " +
+           "LEFT JOIN u.userData ud " +
+           "JOIN p.type t " +
+           "LEFT JOIN p.location l " +
+           "WHERE p.id IN :ids")
+    List<PostCardRow> findPostCardsByIdIn(@Param("ids") Collection<Long> ids);
+    
+    // (id, createdDate) keys of posts by a set of authors (fan-out-on-read for high-follower accounts)
+    @Query("SELECT p.id, p.createdDate FROM Post p " +
+           "WHERE p.user.id IN :authorIds " +
+           "ORDER BY p.createdDate DESC, p.id DESC")
+    List<Object[]> findKeysByAuthorsPage(@Param("authorIds") Collection<Integer> authorIds, Pageable pageable);
+    
+    @Query("SELECT p.id, p.createdDate FROM Post p " +
+           "WHERE p.user.id IN :authorIds " +
+           "AND (p.createdDate < :createdDate OR (p.createdDate = :createdDate AND p.id < :id)) " +
+           "ORDER BY p.createdDate DESC, p.id DESC")
+    List<Object[]> findKeysByAuthorsPageBefore(@Param("authorIds") Collection<Integer> authorIds,
+                                               @Param("createdDate") ZonedDateTime createdDate,
+                                               @Param("id") Long id,
+                                               Pageable pageable);
+    
     // Keep original methods for backward compatibility
     List<Post> findByUserIdOrderByCreatedDateDesc(Integer userId);
     List<Post> findByTypeIdOrderByCreatedDateDesc(Long typeId);
@@ -0,0 +1,49 @@
+package com.example.server.repository;
+
+import com.example.server.model.Entity.PostStats;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+
+@Repository
+public interface PostStatsRepository extends JpaRepository<PostStats, Long> {
+
+    // Atomic counter updates - each returns the number of rows touched (0 when the stats row is missing)
+    @Modifying
+    @Query("UPDATE PostStats s SET s.commentsCount = s.commentsCount + :delta, s.updatedAt = :now WHERE s.postId = :postId")
+    int incrementComments(@Param("postId") Long postId, @Param("delta") long delta, @Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("UPDATE PostStats s SET s.likesCount = s.likesCount + :likesDelta, " +
+           "s.dislikesCount = s.dislikesCount + :dislikesDelta, s.updatedAt = :now WHERE s.postId = :postId")
+    int incrementReactions(@Param("postId") Long postId,
+                           @Param("likesDelta") long likesDelta,
+                           @Param("dislikesDelta") long dislikesDelta,
+                           @Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("UPDATE PostStats s SET s.bookmarksCount = s.bookmarksCount + :delta, s.updatedAt = :now WHERE s.postId = :postId")
+    int incrementBookmarks(@Param("postId") Long postId, @Param("delta") long delta, @Param("now") ZonedDateTime now);
+
+    @Modifying
+    @Query("UPDATE PostStats s SET s.viewsCount = s.viewsCount + :delta, s.updatedAt = :now WHERE s.postId = :postId")
+    int incrementViews(@Param("postId") Long postId, @Param("delta") long delta, @Param("now") ZonedDateTime now);
+
+    // Insert-or-overwrite, so concurrent rebuilds of a missing row never collide on the primary key
+    @Modifying
+    @Query(value = "INSERT INTO post_stats (post_id, comments_count, likes_count, dislikes_count, bookmarks_count, views_count, updated_at) " +
+           "VALUES (:#{#s.postId}, :#{#s.commentsCount}, :#{#s.likesCount}, :#{#s.dislikesCount}, :#{#s.bookmarksCount}, :#{#s.viewsCount}, :#{#s.updatedAt}) " +
+           "ON CONFLICT (post_id) DO UPDATE SET comments_count = EXCLUDED.comments_count, likes_count = EXCLUDED.likes_count, " +
+           "dislikes_count = EXCLUDED.dislikes_count, bookmarks_count = EXCLUDED.bookmarks_count, " +
+           "views_count = EXCLUDED.views_count, updated_at = EXCLUDED.updated_at", nativeQuery = true)
+    int upsert(@Param("s") PostStats stats);
+
+    @Modifying
+    @Query(value = "INSERT INTO post_stats (post_id, updated_at) VALUES (:postId, :now) ON CONFLICT (post_id) DO NOTHING",
+           nativeQuery = true)
+    int insertIfAbsent(@Param("postId") Long postId, @Param("now") ZonedDateTime now);
+}
@@ -2,6 +2,8 @@ package com.example.server.repository;
 
 import com.example.server.model.Entity.RoomUser;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -13,4 +15,8 @@ public interface RoomUserRepository extends JpaRepository<RoomUser, Long> {
     List<RoomUser> findByChatRoomId(Long chatRoomId);
     Optional<RoomUser> findByChatRoomIdAndUserId(Long chatRoomId, Integer userId);
     boolean existsByChatRoomIdAndUserId(Long chatRoomId, Integer userId);
+    
+    // Member ids only - no RoomUser/User entities loaded
+    @Query("SELECT ru.user.id FROM RoomUser ru WHERE ru.chatRoom.id = :chatRoomId")
+    List<Integer> findUserIdsByChatRoomId(@Param("chatRoomId") Long chatRoomId);
 }
\ No newline at end of file
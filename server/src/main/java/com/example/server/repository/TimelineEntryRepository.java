@@ -0,0 +1,38 @@
+package com.example.server.repository;
+
+import com.example.server.model.Entity.TimelineEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+@Repository
+public interface TimelineEntryRepository extends JpaRepository<TimelineEntry, Long> {
+
+    // Newest entries of a user's timeline, keyset-paginated on (createdDate, postId)
+    @Query("SELECT t FROM TimelineEntry t WHERE t.userId = :userId " +
+           "ORDER BY t.createdDate DESC, t.postId DESC")
+    List<TimelineEntry> findTimelinePage(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query("SELECT t FROM TimelineEntry t WHERE t.userId = :userId " +
+           "AND (t.createdDate < :createdDate OR (t.createdDate = :createdDate AND t.postId < :postId)) " +
+           "ORDER BY t.createdDate DESC, t.postId DESC")
+    List<TimelineEntry> findTimelinePageBefore(@Param("userId") Integer userId,
+                                               @Param("createdDate") ZonedDateTime createdDate,
+                                               @Param("postId") Long postId,
+                                               Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.postId = :postId")
+    int deleteByPostId(@Param("postId") Long postId);
+
+    // Retention cleanup - timelines are a cache of recent posts, not an archive
+    @Modifying
+    @Query("DELETE FROM TimelineEntry t WHERE t.createdDate < :cutoff")
+    int deleteOlderThan(@Param("cutoff") ZonedDateTime cutoff);
+}
@@ -5,12 +5,11 @@ import com.example.server.model.Entity.Bookmark;
 import com.example.server.model.Entity.Post;
 import com.example.server.model.Entity.User;
 import com.example.server.model.Entity.PostMedia;
+import com.example.server.model.Entity.PostStats;
 import com.example.server.repository.BookmarkRepository;
 import com.example.server.repository.PostRepository;
 import com.example.server.repository.UserRepository;
-import com.example.server.repository.PostReactionRepository;
 import com.example.server.repository.PostMediaRepository;
-import com.example.server.repository.CommentRepository;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,17 +22,15 @@ import java.util.stream.Collectors;
 public class BookmarkService {    private final BookmarkRepository bookmarkRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
-    private final PostReactionRepository postReactionRepository;
     private final PostMediaRepository postMediaRepository;
-    private final CommentRepository commentRepository;    public BookmarkService(BookmarkRepository bookmarkRepository, PostRepository postRepository, 
-                          UserRepository userRepository, PostReactionRepository postReactionRepository,
-                          PostMediaRepository postMediaRepository, CommentRepository commentRepository) {
+    private final PostStatsService postStatsService;    public BookmarkService(BookmarkRepository bookmarkRepository, PostRepository postRepository, 
+                          UserRepository userRepository, PostMediaRepository postMediaRepository,
+                          PostStatsService postStatsService) {
         this.bookmarkRepository = bookmarkRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
-        this.postReactionRepository = postReactionRepository;
         this.postMediaRepository = postMediaRepository;
-        this.commentRepository = commentRepository;
+        this.postStatsService = postStatsService;
     }
 
     @Transactional
@@ -56,6 +53,7 @@ public class BookmarkService {    private final BookmarkRepository bookmarkRepos
         bookmark.setCreatedAt(ZonedDateTime.now(ZoneOffset.UTC));
 
         Bookmark savedBookmark = bookmarkRepository.save(bookmark);
+        postStatsService.adjustBookmarks(postId, 1);
         return convertToDTO(savedBookmark);
     }
 
@@ -65,6 +63,7 @@ public class BookmarkService {    private final BookmarkRepository bookmarkRepos
             throw new RuntimeException("Bookmark not found");
         }
         bookmarkRepository.deleteByUserIdAndPostId(userId, postId);
+        postStatsService.adjustBookmarks(postId, -1);
     }
 
     public boolean isBookmarked(Long postId, Integer userId) {
@@ -79,7 +78,7 @@ public class BookmarkService {    private final BookmarkRepository bookmarkRepos
     }
 
     public long getBookmarkCount(Long postId) {
-        return bookmarkRepository.countByPostId(postId);
+        return postStatsService.getStats(postId).getBookmarksCount();
     }
 
     private BookmarkDTO convertToDTO(Bookmark bookmark) {
@@ -122,14 +121,11 @@ public class BookmarkService {    private final BookmarkRepository bookmarkRepos
                 .collect(Collectors.toList());
         postDTO.setMediaUrls(mediaUrls);
         
-        // Get reaction counts
-        long likesCount = postReactionRepository.countByPostIdAndReactionTypeId(post.getId(), 1L); // Like = 1
-        long dislikesCount = postReactionRepository.countByPostIdAndReactionTypeId(post.getId(), 2L); // Dislike = 2
-        postDTO.setLikesCount((int) likesCount);
-        postDTO.setDislikesCount((int) dislikesCount);
-          // Get comments count
-        long commentsCount = commentRepository.countByPostId(post.getId());
-        postDTO.setCommentsCount((int) commentsCount);
+        // Get reaction and comment counts from the denormalized counters
+        PostStats stats = postStatsService.getStats(post.getId());
+        postDTO.setLikesCount((int) stats.getLikesCount());
+        postDTO.setDislikesCount((int) stats.getDislikesCount());
+        postDTO.setCommentsCount((int) stats.getCommentsCount());
         
         return postDTO;
     }
@@ -0,0 +1,197 @@
+package com.example.server.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persists chat messages sent over the WebSocket in batches.
+ * Messages are queued by the socket thread and written by a dedicated writer thread, which waits for
+ * the first message, collects more for up to flush-interval-ms or batch-size messages, and writes them
+ * as one multi-row INSERT - so ids follow submission order and each room's messages stay in order,
+ * and slow writes never hold up the shared scheduler. The returned future completes with the
+ * generated id once the row is committed.
+ */
+@Component
+public class ChatMessageWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChatMessageWriter.class);
+
+    private static final String INSERT_PREFIX = "INSERT INTO messages (sender_id, chat_room_id, content, timestamp) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?)";
+
+    private record PendingMessage(Long roomId, Integer senderId, String content, ZonedDateTime timestamp,
+                                  CompletableFuture<Long> result) {}
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BlockingQueue<PendingMessage> queue;
+
+    @Value("${chat.write.batch-size:200}")
+    private int batchSize;
+
+    @Value("${chat.write.flush-interval-ms:50}")
+    private long flushIntervalMs;
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Throughput metrics
+    private final AtomicLong messagesWritten = new AtomicLong();
+    private final AtomicLong batchesWritten = new AtomicLong();
+    private final AtomicLong failedMessages = new AtomicLong();
+    private final AtomicLong rejectedMessages = new AtomicLong();
+    private final AtomicLong totalWriteMillis = new AtomicLong();
+
+    public ChatMessageWriter(JdbcTemplate jdbcTemplate, @Value("${chat.write.queue-capacity:10000}") int queueCapacity) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writerThread = new Thread(this::run, "chat-message-writer");
+        this.writerThread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        writerThread.start();
+    }
+
+    // Stop taking messages and write whatever is still queued
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writerThread.interrupt();
+        writerThread.join(TimeUnit.SECONDS.toMillis(5));
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Queue a message for the next flush. The caller must already have checked room membership.
+     * @return the message id once written; fails immediately if the queue is full
+     */
+    public CompletableFuture<Long> submit(Long roomId, Integer senderId, String content, ZonedDateTime timestamp) {
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        if (!running || !queue.offer(new PendingMessage(roomId, senderId, content, timestamp, result))) {
+            rejectedMessages.incrementAndGet();
+            result.completeExceptionally(new RuntimeException("Message queue is full"));
+        }
+        return result;
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingMessage next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                // Shutting down: write what was collected, shutdown() takes care of the rest
+                Thread.currentThread().interrupt();
+                write(batch);
+                return;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingMessage> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            List<Long> ids = insert(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(ids.get(i));
+            }
+            messagesWritten.addAndGet(batch.size());
+            batchesWritten.incrementAndGet();
+        } catch (Exception e) {
+            // One bad row (e.g. a room deleted meanwhile) fails the statement; retry row by row
+            logger.warn("Failed to write chat batch of {}, retrying individually: {}", batch.size(), e.getMessage());
+            writeIndividually(batch);
+        }
+        totalWriteMillis.addAndGet(System.currentTimeMillis() - start);
+    }
+
+    private void writeIndividually(List<PendingMessage> batch) {
+        for (PendingMessage message : batch) {
+            try {
+                message.result().complete(insert(List.of(message)).get(0));
+                messagesWritten.incrementAndGet();
+            } catch (Exception e) {
+                failedMessages.incrementAndGet();
+                logger.warn("Failed to write chat message from {} to room {}: {}", message.senderId(), message.roomId(), e.getMessage());
+                message.result().completeExceptionally(e);
+            }
+        }
+    }
+
+    private List<Long> insert(List<PendingMessage> batch) {
+        StringJoiner values = new StringJoiner(", ", INSERT_PREFIX, "");
+        Object[] args = new Object[batch.size() * 4];
+        int i = 0;
+        for (PendingMessage message : batch) {
+            values.add(ROW_PLACEHOLDERS);
+            args[i++] = message.senderId();
+            args[i++] = message.roomId();
+            args[i++] = message.content();
+            args[i++] = message.timestamp().toOffsetDateTime();
+        }
+        String sql = values.toString();
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, new String[] { "id" });
+            for (int j = 0; j < args.length; j++) {
+                statement.setObject(j + 1, args[j]);
+            }
+            return statement;
+        }, keyHolder);
+        // Generated keys come back in VALUES order
+        List<Long> ids = new ArrayList<>(batch.size());
+        keyHolder.getKeyList().forEach(key -> ids.add(((Number) key.values().iterator().next()).longValue()));
+        return ids;
+    }
+
+    public Map<String, Object> getStats() {
+        long messages = messagesWritten.get();
+        long batches = batchesWritten.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("batchSize", batchSize);
+        stats.put("flushIntervalMs", flushIntervalMs);
+        stats.put("messagesWritten", messages);
+        stats.put("batchesWritten", batches);
+        stats.put("averageBatchSize", batches > 0 ? (double) messages / batches : 0.0);
+        stats.put("failedMessages", failedMessages.get());
+        stats.put("rejectedMessages", rejectedMessages.get());
+        stats.put("totalWriteMillis", totalWriteMillis.get());
+        return stats;
+    }
+}
@@ -18,14 +18,17 @@ public class ChatRoomService {
     private final RoomUserRepository roomUserRepository;
     private final MessageRepository messageRepository;
     private final UserRepository userRepository;
+    private final RoomMembershipCache roomMembershipCache;
 
     @Autowired
     public ChatRoomService(ChatRoomRepository chatRoomRepository, RoomUserRepository roomUserRepository,
-                          MessageRepository messageRepository, UserRepository userRepository) {
+                          MessageRepository messageRepository, UserRepository userRepository,
+                          RoomMembershipCache roomMembershipCache) {
         this.chatRoomRepository = chatRoomRepository;
         this.roomUserRepository = roomUserRepository;
         this.messageRepository = messageRepository;
         this.userRepository = userRepository;
+        this.roomMembershipCache = roomMembershipCache;
     }    public List<ChatRoomDTO> getChatRoomsByUserId(Integer userId) {
         List<RoomUser> userRooms = roomUserRepository.findByUserId(userId);
         
@@ -79,6 +82,7 @@ public class ChatRoomService {
                     roomUserRepository.save(roomUser);
                 }
             }        }
+        roomMembershipCache.invalidate(savedChatRoom.getId());
 
         ChatRoomDTO result = convertToDTO(savedChatRoom);
         System.out.println("📋 Final DTO result - isGroupChat: " + result.isGroupChat());
@@ -124,6 +128,7 @@ public class ChatRoomService {
         roomUser2.setUser(user2);
         roomUser2.setJoinedAt(ZonedDateTime.now(ZoneOffset.UTC));
         roomUserRepository.save(roomUser2);
+        roomMembershipCache.invalidate(savedChatRoom.getId());
 
         return convertToDTO(savedChatRoom);
     }public void joinChatRoom(Long chatRoomId, Integer userId) {
@@ -143,11 +148,13 @@ public class ChatRoomService {
         roomUser.setUser(user);
         roomUser.setJoinedAt(ZonedDateTime.now(ZoneOffset.UTC));
         roomUserRepository.save(roomUser);
+        roomMembershipCache.invalidate(chatRoomId);
     }    public void leaveChatRoom(Long chatRoomId, Integer userId) {
         RoomUser roomUser = roomUserRepository.findByChatRoomIdAndUserId(chatRoomId, userId)
                 .orElseThrow(() -> new RuntimeException("User not in chat room"));
 
         roomUserRepository.delete(roomUser);
+        roomMembershipCache.invalidate(chatRoomId);
     }    /**
      * Deletes a chat room completely (used when friends unfriend each other)
      */
@@ -167,6 +174,7 @@ public class ChatRoomService {
             
             // Finally delete the chat room itself
             chatRoomRepository.deleteById(chatRoomId);
+            roomMembershipCache.invalidate(chatRoomId);
             
             System.out.println("Successfully deleted chat room " + chatRoomId + " and all associated data");
         } catch (Exception e) {
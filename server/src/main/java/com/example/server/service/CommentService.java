@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import java.time.ZonedDateTime;
 import java.time.ZoneOffset;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -16,18 +17,21 @@ public class CommentService {    private final CommentRepository commentReposito
     private final CommentReplyRepository commentReplyRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
     private final ProfanityDetectionService profanityDetectionService;
+    private final PostStatsService postStatsService;
 
     public CommentService(CommentRepository commentRepository, CommentReplyRepository commentReplyRepository, 
                          PostRepository postRepository, UserRepository userRepository,
-                         NotificationService notificationService, ProfanityDetectionService profanityDetectionService) {
+                         OutboxService outboxService, ProfanityDetectionService profanityDetectionService,
+                         PostStatsService postStatsService) {
         this.commentRepository = commentRepository;
         this.commentReplyRepository = commentReplyRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
         this.profanityDetectionService = profanityDetectionService;
+        this.postStatsService = postStatsService;
     }
     
     public List<CommentDTO> getCommentsByPostId(Long postId) {
@@ -37,6 +41,7 @@ public class CommentService {    private final CommentRepository commentReposito
                 .collect(Collectors.toList());
     }
 
+    @Transactional
     public CommentDTO createComment(Long postId, CreateCommentRequest request, Integer userId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
@@ -76,19 +81,14 @@ public class CommentService {    private final CommentRepository commentReposito
         comment.setCreatedDate(ZonedDateTime.now(ZoneOffset.UTC));
         comment.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
 
-        Comment savedComment = commentRepository.save(comment);        // Trigger async comment notification if commenter is not the post author
-        try {
-            if (!post.getUser().getId().equals(userId)) {
-                // Use async notification for better performance in social media
-                notificationService.createCommentNotificationAsync(
-                    savedComment.getUser().getId(), 
-                    savedComment.getPost().getId(), 
-                    savedComment.getId()
-                );
-            }
-        } catch (Exception e) {
-            // Log error but don't fail comment creation
-            System.err.println("Failed to create async comment notification: " + e.getMessage());
+        Comment savedComment = commentRepository.save(comment);
+        postStatsService.adjustComments(postId, 1);
+        // Queue the comment notification in this transaction if commenter is not the post author
+        if (!post.getUser().getId().equals(userId)) {
+            outboxService.enqueue(OutboxService.COMMENT_NOTIFICATION, Map.of(
+                "commentAuthorId", savedComment.getUser().getId(),
+                "postId", savedComment.getPost().getId(),
+                "commentId", savedComment.getId()));
         }
         
         return convertToDTO(savedComment);    }
@@ -132,6 +132,7 @@ public class CommentService {    private final CommentRepository commentReposito
         }
 
         commentRepository.delete(comment);
+        postStatsService.adjustComments(comment.getPost().getId(), -1);
     }
 
     // Keep the old method for backward compatibility (admin use)
@@ -140,7 +141,11 @@ public class CommentService {    private final CommentRepository commentReposito
         Comment comment = commentRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
         commentRepository.delete(comment);
-    }    public CommentDTO createReply(Long commentId, CreateCommentRequest request, Integer userId) {
+        postStatsService.adjustComments(comment.getPost().getId(), -1);
+    }
+
+    @Transactional
+    public CommentDTO createReply(Long commentId, CreateCommentRequest request, Integer userId) {
         Comment rootComment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new RuntimeException("Comment not found"));
         
@@ -157,6 +162,7 @@ public class CommentService {    private final CommentRepository commentReposito
         replyComment.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
 
         Comment savedReply = commentRepository.save(replyComment);
+        postStatsService.adjustComments(savedReply.getPost().getId(), 1);
         
         // Create the relationship in comment_replies table
         CommentReply relationship = new CommentReply();
@@ -166,18 +172,11 @@ public class CommentService {    private final CommentRepository commentReposito
         
         // Trigger async comment notification if replier is not the original commenter
         commentReplyRepository.save(relationship);        
-        try {
-            if (!rootComment.getUser().getId().equals(userId)) {
-                // Use async notification for better social media performance
-                notificationService.createCommentNotificationAsync(
-                    savedReply.getUser().getId(), 
-                    savedReply.getPost().getId(), 
-                    savedReply.getId()
-                );
-            }
-        } catch (Exception e) {
-            // Log error but don't fail reply creation
-            System.err.println("Failed to create async reply notification: " + e.getMessage());
+        if (!rootComment.getUser().getId().equals(userId)) {
+            outboxService.enqueue(OutboxService.COMMENT_NOTIFICATION, Map.of(
+                "commentAuthorId", savedReply.getUser().getId(),
+                "postId", savedReply.getPost().getId(),
+                "commentId", savedReply.getId()));
         }
         
         return convertToDTO(savedReply);
@@ -2,12 +2,16 @@ package com.example.server.service;
 
 import com.example.server.dto.FollowDTO;
 import com.example.server.dto.UserDTO;
+import com.example.server.event.SocialGraphChangedEvent;
 import com.example.server.model.Entity.Follow;
 import com.example.server.model.Entity.User;
 import com.example.server.repository.FollowRepository;
 import com.example.server.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
@@ -19,14 +23,18 @@ public class FollowService {
 
     private final FollowRepository followRepository;
     private final UserRepository userRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Autowired
-    public FollowService(FollowRepository followRepository, UserRepository userRepository) {
+    public FollowService(FollowRepository followRepository, UserRepository userRepository,
+                         ApplicationEventPublisher eventPublisher) {
         this.followRepository = followRepository;
         this.userRepository = userRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     // Follow a user
+    @Transactional
     public FollowDTO followUser(Integer followerId, Integer followingId) {
         if (followerId.equals(followingId)) {
             throw new RuntimeException("Cannot follow yourself");
@@ -48,14 +56,19 @@ public class FollowService {
         follow.setTimestamp(LocalDateTime.now());
 
         Follow savedFollow = followRepository.save(follow);
+        followRepository.adjustFollowerCount(followingId, 1);
+        eventPublisher.publishEvent(new SocialGraphChangedEvent(followerId, followingId));
         return convertToDTO(savedFollow);
     }
 
     // Unfollow a user
+    @Transactional
     public void unfollowUser(Integer followerId, Integer followingId) {
         Optional<Follow> follow = followRepository.findByFollowerIdAndFollowingId(followerId, followingId);
         if (follow.isPresent()) {
             followRepository.delete(follow.get());
+            followRepository.adjustFollowerCount(followingId, -1);
+            eventPublisher.publishEvent(new SocialGraphChangedEvent(followerId, followingId));
         } else {
             throw new RuntimeException("Not following this user");
         }
@@ -93,6 +106,17 @@ public class FollowService {
         return stats;
     }
 
+    /**
+     * Recount follower_counts from follows to repair drift - runs hourly
+     */
+    @Scheduled(fixedDelay = 3600000, initialDelay = 60000)
+    @Transactional
+    public void reconcileFollowerCounts() {
+        int updated = followRepository.reconcileFollowerCounts();
+        int reset = followRepository.resetUnfollowedCounts();
+        System.out.println("Reconciled follower counts: " + updated + " accounts, " + reset + " reset to zero");
+    }
+
     // Get all follower IDs for a user (used for notifications)
     public List<Integer> getFollowerIds(Integer userId) {
         return followRepository.findFollowerIdsByUserId(userId);
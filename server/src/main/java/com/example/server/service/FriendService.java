@@ -1,8 +1,10 @@
 package com.example.server.service;
 
 import com.example.server.dto.*;
+import com.example.server.event.SocialGraphChangedEvent;
 import com.example.server.model.Entity.*;
 import com.example.server.repository.*;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDateTime;
@@ -15,16 +17,19 @@ public class FriendService {    private final FriendRepository friendRepository;
     private final UserRepository userRepository;
     private final RequestStatusRepository requestStatusRepository;
     private final ChatRoomService chatRoomService;    private final RoomUserRepository roomUserRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public FriendService(FriendRepository friendRepository, FriendRequestRepository friendRequestRepository,
                         UserRepository userRepository, RequestStatusRepository requestStatusRepository,
-                        ChatRoomService chatRoomService, RoomUserRepository roomUserRepository) {
+                        ChatRoomService chatRoomService, RoomUserRepository roomUserRepository,
+                        ApplicationEventPublisher eventPublisher) {
         this.friendRepository = friendRepository;
         this.friendRequestRepository = friendRequestRepository;
         this.userRepository = userRepository;
         this.requestStatusRepository = requestStatusRepository;
         this.chatRoomService = chatRoomService;
         this.roomUserRepository = roomUserRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public List<FriendDTO> getFriendsByUserId(Integer userId) {
@@ -131,6 +136,7 @@ public class FriendService {    private final FriendRepository friendRepository;
         friendship.setFriendshipDate(LocalDateTime.now());
 
         Friend savedFriendship = friendRepository.save(friendship);
+        eventPublisher.publishEvent(new SocialGraphChangedEvent(request.getSender().getId(), request.getReceiver().getId()));
         
         // Automatically create a private chat room between the two users
         createPrivateChatRoomBetweenUsers(request.getSender().getId(), request.getReceiver().getId());
@@ -154,6 +160,7 @@ public class FriendService {    private final FriendRepository friendRepository;
 
         // Delete the friendship record
         friendRepository.delete(friendship);
+        eventPublisher.publishEvent(new SocialGraphChangedEvent(userId, friendId));
         
         // Note: We keep the private chat room intact so users can preserve their conversation history
         // The chat room can be manually deleted by users if they choose to do so
@@ -235,7 +242,7 @@ public class FriendService {    private final FriendRepository friendRepository;
                         // This is the private chat room between these two users
                         Long chatRoomId = roomUser1.getChatRoom().getId();
                         
-                        // Remove all room users (participants)
+                        // Remove all room users (participants) - deleteChatRoom below evicts the room's cached members
                         roomUserRepository.deleteAll(roomParticipants);
                         
                         // Delete the chat room itself
@@ -313,11 +320,7 @@ public class FriendService {    private final FriendRepository friendRepository;
      * @return true if users are friends, false otherwise
      */
     public boolean areFriends(Integer userId1, Integer userId2) {
-        return friendRepository.findAll().stream()
-                .anyMatch(friend -> 
-                    (friend.getUser1().getId().equals(userId1) && friend.getUser2().getId().equals(userId2)) ||
-                    (friend.getUser1().getId().equals(userId2) && friend.getUser2().getId().equals(userId1))
-                );
+        return friendRepository.existsBetweenUsers(userId1, userId2);
     }
 
     private FriendDTO convertToDTO(Friend friend, Integer currentUserId) {
@@ -0,0 +1,113 @@
+package com.example.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-text moderation checks into /batch_detect calls.
+ * A dispatcher thread waits for the first pending check, collects more for up to windowMs or until
+ * maxBatchSize texts are queued, sends them as one batch and completes each caller's future with
+ * the result at its index. Checks that arrive while a batch is in flight form the next batch.
+ */
+public class ModerationBatchDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModerationBatchDispatcher.class);
+
+    private record PendingCheck(String text, CompletableFuture<ProfanityDetectionService.ProfanityResult> future) {}
+
+    private final Function<List<String>, List<ProfanityDetectionService.ProfanityResult>> batchSender;
+    private final int maxBatchSize;
+    private final long windowMs;
+    private final BlockingQueue<PendingCheck> queue;
+    private final Thread dispatcherThread;
+    private volatile boolean running = true;
+
+    private final AtomicLong batchesSent = new AtomicLong();
+    private final AtomicLong textsSent = new AtomicLong();
+
+    public ModerationBatchDispatcher(Function<List<String>, List<ProfanityDetectionService.ProfanityResult>> batchSender,
+                                     int maxBatchSize, long windowMs, int queueCapacity) {
+        this.batchSender = batchSender;
+        this.maxBatchSize = maxBatchSize;
+        this.windowMs = windowMs;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+        this.dispatcherThread = new Thread(this::run, "moderation-batcher");
+        this.dispatcherThread.setDaemon(true);
+    }
+
+    public void start() {
+        dispatcherThread.start();
+    }
+
+    public void shutdown() {
+        running = false;
+        dispatcherThread.interrupt();
+        List<PendingCheck> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        leftover.forEach(check -> check.future().completeExceptionally(new IllegalStateException("Moderation dispatcher stopped")));
+    }
+
+    /**
+     * Queue a text for the next batch. The future fails immediately if the queue is full.
+     */
+    public CompletableFuture<ProfanityDetectionService.ProfanityResult> submit(String text) {
+        CompletableFuture<ProfanityDetectionService.ProfanityResult> future = new CompletableFuture<>();
+        if (!running || !queue.offer(new PendingCheck(text, future))) {
+            future.completeExceptionally(new IllegalStateException("Moderation queue is full"));
+        }
+        return future;
+    }
+
+    public long getBatchesSent() { return batchesSent.get(); }
+    public long getTextsSent() { return textsSent.get(); }
+    public int getQueueSize() { return queue.size(); }
+
+    private void run() {
+        List<PendingCheck> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    PendingCheck next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(check -> check.future().completeExceptionally(e));
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<PendingCheck> batch) {
+        List<String> texts = batch.stream().map(PendingCheck::text).toList();
+        try {
+            List<ProfanityDetectionService.ProfanityResult> results = batchSender.apply(texts);
+            batchesSent.incrementAndGet();
+            textsSent.addAndGet(texts.size());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future().complete(results.get(i));
+            }
+        } catch (Exception e) {
+            logger.warn("Moderation batch of {} texts failed: {}", texts.size(), e.getMessage());
+            batch.forEach(check -> check.future().completeExceptionally(e));
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.server.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Circuit breaker around the moderation AI server's /detect endpoint.
+ * CLOSED lets calls through; after enough consecutive failures it OPENs and rejects calls immediately.
+ * Once the open window has passed (or the health prober sees the server ready again) it goes HALF_OPEN
+ * and lets a single trial call through - success closes it, failure re-opens it.
+ */
+@Component
+public class ModerationCircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    @Value("${profanity.circuit.failure-threshold:5}")
+    private int failureThreshold;
+
+    @Value("${profanity.circuit.open-ms:30000}")
+    private long openMs;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private long rejectedCalls;
+    private long timesOpened;
+
+    /**
+     * @return true if the caller may hit the AI server now, false if it should fail fast
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        rejectedCalls++;
+        return false;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+        trialInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    /**
+     * The call never produced an AI server outcome (local queue full, caller timed out) -
+     * free the half-open trial slot without counting it either way
+     */
+    public synchronized void releaseTrial() {
+        trialInFlight = false;
+    }
+
+    /**
+     * Health prober saw the server go down - stop sending traffic right away
+     */
+    public synchronized void forceOpen() {
+        if (state != State.OPEN) {
+            open();
+        }
+    }
+
+    /**
+     * Health prober saw the server ready again - allow a trial call without waiting out the open window
+     */
+    public synchronized void probeSucceeded() {
+        if (state == State.OPEN) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("state", state.name());
+        stats.put("consecutiveFailures", consecutiveFailures);
+        stats.put("failureThreshold", failureThreshold);
+        stats.put("openMs", openMs);
+        stats.put("timesOpened", timesOpened);
+        stats.put("rejectedCalls", rejectedCalls);
+        return stats;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.currentTimeMillis();
+        timesOpened++;
+    }
+}
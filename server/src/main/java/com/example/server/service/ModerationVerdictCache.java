@@ -0,0 +1,90 @@
+package com.example.server.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+
+/**
+ * Bounded, TTL-evicting cache of moderation verdicts.
+ * Keys are a SHA-256 of the normalized text plus the model fingerprint, so reposts and
+ * copy-pasted comments skip the AI round-trip, and a model change never reuses old verdicts.
+ */
+@Component
+public class ModerationVerdictCache {
+
+    @Value("${profanity.cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${profanity.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private Cache<String, ProfanityDetectionService.ProfanityResult> verdicts;
+
+    @PostConstruct
+    public void init() {
+        this.verdicts = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build();
+    }
+
+    public ProfanityDetectionService.ProfanityResult get(String text, String modelFingerprint) {
+        return verdicts.getIfPresent(key(text, modelFingerprint));
+    }
+
+    public void put(String text, String modelFingerprint, ProfanityDetectionService.ProfanityResult result) {
+        verdicts.put(key(text, modelFingerprint), result);
+    }
+
+    public void clear() {
+        verdicts.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = verdicts.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("size", verdicts.estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("ttlMinutes", ttlMinutes);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+
+    /**
+     * Unicode NFC (Vietnamese diacritics can arrive composed or decomposed) and trimmed, matching the
+     * strip() the AI server applies before inference. Texts sharing a key share the verdict, not the
+     * toxic span offsets - see ProfanityResult.copyFor.
+     */
+    static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).strip();
+    }
+
+    private String key(String text, String modelFingerprint) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelFingerprint.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalize(text).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
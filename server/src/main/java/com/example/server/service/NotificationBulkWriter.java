@@ -0,0 +1,160 @@
+package com.example.server.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes notification fan-out with multi-row INSERT statements.
+ * Rows reference users/posts/comments by id, so nothing is loaded per recipient, and each chunk of
+ * rows is one statement/round-trip (Notification uses IDENTITY ids, which keeps Hibernate from batching saves).
+ */
+@Component
+public class NotificationBulkWriter {
+
+    private static final String INSERT_PREFIX = "INSERT INTO notifications " +
+            "(recipient_user_id, actor_user_id, type, post_id, comment_id, content, read_status, created_at) VALUES ";
+    private static final String ROW_PLACEHOLDERS = "(?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SKIP_EXISTING_SUFFIX = " ON CONFLICT DO NOTHING";
+
+    /**
+     * One notification row by id references
+     */
+    public record NotificationRow(Integer recipientUserId, Integer actorUserId, String type,
+                                  Long postId, Long commentId, String content) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${notification.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    // Throughput metrics
+    private final AtomicLong rowsInserted = new AtomicLong();
+    private final AtomicLong rowsSkipped = new AtomicLong();
+    private final AtomicLong statementsExecuted = new AtomicLong();
+    private final AtomicLong failedChunks = new AtomicLong();
+    private final AtomicLong totalInsertMillis = new AtomicLong();
+
+    public NotificationBulkWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert the same notification for every recipient. Recipients that already have it under a unique
+     * index (e.g. one FRIEND_POST per recipient and post) are skipped, so a redelivered fan-out is a no-op
+     * @return generated ids aligned with the recipients (null where the row existed or a chunk failed)
+     */
+    public List<Long> insertNewForRecipients(Collection<Integer> recipientIds, Integer actorUserId, String type,
+                                             Long postId, Long commentId, String content) {
+        List<NotificationRow> rows = new ArrayList<>(recipientIds.size());
+        for (Integer recipientId : recipientIds) {
+            rows.add(new NotificationRow(recipientId, actorUserId, type, postId, commentId, content));
+        }
+        return insert(rows, true);
+    }
+
+    /**
+     * Insert rows in chunks of notification.bulk.chunk-size, one multi-row statement per chunk.
+     * A failing chunk is logged and skipped so one bad row doesn't drop the whole fan-out.
+     * @return generated ids aligned with the rows (null where a chunk failed)
+     */
+    public List<Long> insertAll(List<NotificationRow> rows) {
+        return insert(rows, false);
+    }
+
+    private List<Long> insert(List<NotificationRow> rows, boolean skipExisting) {
+        List<Long> ids = new ArrayList<>(rows.size());
+        if (rows.isEmpty()) {
+            return ids;
+        }
+        long start = System.currentTimeMillis();
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now());
+        int inserted = 0;
+
+        for (int from = 0; from < rows.size(); from += chunkSize) {
+            List<NotificationRow> chunk = rows.subList(from, Math.min(from + chunkSize, rows.size()));
+            try {
+                String sql = buildInsert(chunk.size()) + (skipExisting ? SKIP_EXISTING_SUFFIX : "");
+                Object[] args = toArgs(chunk, createdAt);
+                KeyHolder keyHolder = new GeneratedKeyHolder();
+                jdbcTemplate.update(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(sql, new String[] { "id", "recipient_user_id" });
+                    for (int i = 0; i < args.length; i++) {
+                        statement.setObject(i + 1, args[i]);
+                    }
+                    return statement;
+                }, keyHolder);
+                List<Map<String, Object>> keys = keyHolder.getKeyList();
+                if (keys.size() == chunk.size()) {
+                    // Generated keys come back in VALUES order
+                    keys.forEach(key -> ids.add(((Number) key.get("id")).longValue()));
+                } else {
+                    // Some rows were skipped as existing; match the rest back by recipient
+                    Map<Integer, Long> idByRecipient = new HashMap<>();
+                    keys.forEach(key -> idByRecipient.put(((Number) key.get("recipient_user_id")).intValue(),
+                            ((Number) key.get("id")).longValue()));
+                    chunk.forEach(row -> ids.add(idByRecipient.get(row.recipientUserId())));
+                    rowsSkipped.addAndGet(chunk.size() - keys.size());
+                }
+                inserted += keys.size();
+                statementsExecuted.incrementAndGet();
+            } catch (Exception e) {
+                failedChunks.incrementAndGet();
+                chunk.forEach(row -> ids.add(null));
+                System.err.println("Failed to insert notification chunk of " + chunk.size() + ": " + e.getMessage());
+            }
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        rowsInserted.addAndGet(inserted);
+        totalInsertMillis.addAndGet(elapsed);
+        System.out.println("Bulk inserted " + inserted + " notifications in " + elapsed + "ms");
+        return ids;
+    }
+
+    public Map<String, Object> getStats() {
+        long rows = rowsInserted.get();
+        long millis = totalInsertMillis.get();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("chunkSize", chunkSize);
+        stats.put("rowsInserted", rows);
+        stats.put("rowsSkipped", rowsSkipped.get());
+        stats.put("statementsExecuted", statementsExecuted.get());
+        stats.put("failedChunks", failedChunks.get());
+        stats.put("totalInsertMillis", millis);
+        stats.put("rowsPerSecond", millis > 0 ? rows * 1000.0 / millis : 0.0);
+        return stats;
+    }
+
+    private static String buildInsert(int rowCount) {
+        StringJoiner values = new StringJoiner(", ", INSERT_PREFIX, "");
+        for (int i = 0; i < rowCount; i++) {
+            values.add(ROW_PLACEHOLDERS);
+        }
+        return values.toString();
+    }
+
+    private static Object[] toArgs(List<NotificationRow> chunk, Timestamp createdAt) {
+        Object[] args = new Object[chunk.size() * 8];
+        int i = 0;
+        for (NotificationRow row : chunk) {
+            args[i++] = row.recipientUserId();
+            args[i++] = row.actorUserId();
+            args[i++] = row.type();
+            args[i++] = row.postId();
+            args[i++] = row.commentId();
+            args[i++] = row.content();
+            args[i++] = false;
+            args[i++] = createdAt;
+        }
+        return args;
+    }
+}
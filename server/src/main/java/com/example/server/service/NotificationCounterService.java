@@ -0,0 +1,110 @@
+package com.example.server.service;
+
+import com.example.server.model.Entity.NotificationCounter;
+import com.example.server.repository.NotificationCounterRepository;
+import com.example.server.repository.NotificationRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Per-user unread notification counters kept in notification_counters rows.
+ * Writers adjust the row atomically and reads go straight to it (a primary key lookup), so every
+ * node sees the same value without a node-local cache to keep coherent. A periodic reconciler
+ * recounts recently touched counters from the notifications table to correct any drift.
+ * Users without a counter row get it rebuilt from a COUNT on first read.
+ */
+@Service
+public class NotificationCounterService {
+
+    private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
+    private final NotificationCounterRepository counterRepository;
+    private final NotificationRepository notificationRepository;
+
+    @Value("${notification.counter.reconcile-interval-ms:600000}")
+    private long reconcileIntervalMs;
+
+    @Value("${notification.counter.sweep-batch-size:1000}")
+    private int sweepBatchSize;
+
+    // Last user id visited by the rolling sweep; wraps to the start after the last page
+    private volatile int sweepCursor;
+
+    public NotificationCounterService(NotificationCounterRepository counterRepository,
+                                      NotificationRepository notificationRepository) {
+        this.counterRepository = counterRepository;
+        this.notificationRepository = notificationRepository;
+    }
+
+    public long getUnreadCount(Integer userId) {
+        return counterRepository.findById(userId)
+                .map(NotificationCounter::getUnreadCount)
+                .orElseGet(() -> rebuildCounter(userId));
+    }
+
+    @Transactional
+    public void adjustUnread(Integer userId, long delta) {
+        // No row yet: it gets rebuilt from a recount on next read
+        counterRepository.incrementUnread(userId, delta, now());
+    }
+
+    /**
+     * One new unread notification for each of the given users (notification fan-out)
+     */
+    @Transactional
+    public void incrementUnread(Collection<Integer> userIds) {
+        List<Integer> ids = new ArrayList<>(userIds);
+        for (int from = 0; from < ids.size(); from += IN_CLAUSE_CHUNK_SIZE) {
+            counterRepository.incrementUnreadForUsers(ids.subList(from, Math.min(from + IN_CLAUSE_CHUNK_SIZE, ids.size())), now());
+        }
+    }
+
+    @Transactional
+    public void resetUnread(Integer userId) {
+        counterRepository.resetUnread(userId, now());
+    }
+
+    /**
+     * Recount counters touched during the last two intervals, plus the next sweep-batch-size counters
+     * in user id order, so drift on counters nobody touches anymore is also corrected eventually
+     * - runs every 10 minutes by default
+     */
+    @Scheduled(fixedDelayString = "${notification.counter.reconcile-interval-ms:600000}",
+               initialDelayString = "${notification.counter.reconcile-interval-ms:600000}")
+    @Transactional
+    public void reconcileCounters() {
+        ZonedDateTime since = now().minus(Duration.ofMillis(reconcileIntervalMs * 2));
+        int reconciled = counterRepository.reconcileUpdatedSince(since);
+
+        List<Integer> page = counterRepository.findUserIdsAfter(sweepCursor, sweepBatchSize);
+        if (!page.isEmpty()) {
+            reconciled += counterRepository.reconcileUsers(page);
+        }
+        sweepCursor = page.size() < sweepBatchSize ? 0 : page.get(page.size() - 1);
+        System.out.println("Reconciled " + reconciled + " unread notification counters");
+    }
+
+    private long rebuildCounter(Integer userId) {
+        long unread = notificationRepository.countUnreadByUserId(userId);
+        try {
+            counterRepository.save(new NotificationCounter(userId, unread));
+        } catch (DataIntegrityViolationException e) {
+            // Created concurrently by another node - keep the recount we already have
+        }
+        return unread;
+    }
+
+    private ZonedDateTime now() {
+        return ZonedDateTime.now(ZoneOffset.UTC);
+    }
+}
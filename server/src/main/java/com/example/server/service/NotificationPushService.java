@@ -0,0 +1,40 @@
+package com.example.server.service;
+
+import com.example.server.dto.NotificationDTO;
+import com.example.server.event.NotificationCreatedEvent;
+import com.example.server.handler.WebSocketHandler;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Pushes newly created notifications to the recipients' live WebSocket sessions,
+ * so clients don't have to poll /notifications/unread and /count/unread to find them.
+ */
+@Service
+public class NotificationPushService {
+
+    private final WebSocketHandler webSocketHandler;
+
+    public NotificationPushService(WebSocketHandler webSocketHandler) {
+        this.webSocketHandler = webSocketHandler;
+    }
+
+    /**
+     * Runs after commit so clients never fetch a notification that isn't visible yet
+     */
+    @Async("websocketExecutor")
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onNotificationsCreated(NotificationCreatedEvent event) {
+        int pushed = 0;
+        for (NotificationDTO notification : event.notifications()) {
+            // Offline recipients pick it up on their next fetch
+            if (webSocketHandler.pushNotification(notification.getRecipientUserId(), notification)) {
+                pushed++;
+            }
+        }
+        if (pushed > 0) {
+            System.out.println("Pushed " + pushed + "/" + event.notifications().size() + " notifications over WebSocket");
+        }
+    }
+}
@@ -1,39 +1,90 @@
 package com.example.server.service;
 
 import com.example.server.dto.NotificationDTO;
+import com.example.server.dto.NotificationPageDTO;
+import com.example.server.event.NotificationCreatedEvent;
 import com.example.server.model.Entity.*;
 import com.example.server.repository.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.core.task.TaskExecutor;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.HashSet;
 import java.util.stream.Collectors;
 import java.util.concurrent.CompletableFuture;
 
 @Service
-public class NotificationService {    private final NotificationRepository notificationRepository;
+public class NotificationService {
+
+    // Actor ids kept on an aggregated row for "A, B and N others"
+    private static final int MAX_RECENT_ACTORS = 3;
+
+    // Group state read under the row lock in upsertGrouped
+    private record GroupBump(Notification group, boolean wasRead, int actorDelta, String recentActorIds) {}
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 50;
+
+    private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final PostRepository postRepository;
     private final CommentRepository commentRepository;
     private final FriendRepository friendRepository;
     private final FollowService followService;
+    private final NotificationBulkWriter notificationBulkWriter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final NotificationCounterService notificationCounterService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${notification.retention.enabled:false}")
+    private boolean retentionEnabled;
+
+    @Value("${notification.retention.read-days:90}")
+    private int readRetentionDays;
+
+    @Value("${notification.aggregation.enabled:true}")
+    private boolean aggregationEnabled;
+
+    @Value("${notification.aggregation.bucket-hours:24}")
+    private int aggregationBucketHours;
 
     public NotificationService(NotificationRepository notificationRepository, 
                               UserRepository userRepository, 
                               PostRepository postRepository,
                               CommentRepository commentRepository,
                               FriendRepository friendRepository,
-                              FollowService followService) {
+                              FollowService followService,
+                              NotificationBulkWriter notificationBulkWriter,
+                              ApplicationEventPublisher eventPublisher,
+                              NotificationCounterService notificationCounterService,
+                              TransactionTemplate transactionTemplate) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.postRepository = postRepository;
         this.commentRepository = commentRepository;
         this.friendRepository = friendRepository;
         this.followService = followService;
+        this.notificationBulkWriter = notificationBulkWriter;
+        this.eventPublisher = eventPublisher;
+        this.notificationCounterService = notificationCounterService;
+        this.transactionTemplate = transactionTemplate;
     }// Get notifications for a user (recipient)
     public List<NotificationDTO> getNotificationsByUserId(Integer userId) {
         List<Notification> notifications = notificationRepository.findByRecipientUserId(userId);
@@ -50,59 +101,112 @@ public class NotificationService {    private final NotificationRepository notif
                 .collect(Collectors.toList());
     }
 
-    // Get count of unread notifications
+    /**
+     * One page of the user's notifications, newest first, using keyset pagination on (createdAt, id).
+     * The cursor is the opaque token returned as nextCursor by the previous page.
+     */
+    public NotificationPageDTO getNotificationPage(Integer userId, String cursor, Integer size) {
+        int pageSize = normalizePageSize(size);
+        // Fetch one extra row to know whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findPage(userId, pageable);
+        } else {
+            NotificationCursor position = NotificationCursor.decode(cursor);
+            notifications = notificationRepository.findPageBefore(userId, position.createdAt(), position.id(), pageable);
+        }
+        return toPage(notifications, pageSize);
+    }
+
+    // Same as getNotificationPage, restricted to unread notifications
+    public NotificationPageDTO getUnreadNotificationPage(Integer userId, String cursor, Integer size) {
+        int pageSize = normalizePageSize(size);
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Notification> notifications;
+        if (cursor == null || cursor.isBlank()) {
+            notifications = notificationRepository.findUnreadPage(userId, pageable);
+        } else {
+            NotificationCursor position = NotificationCursor.decode(cursor);
+            notifications = notificationRepository.findUnreadPageBefore(userId, position.createdAt(), position.id(), pageable);
+        }
+        return toPage(notifications, pageSize);
+    }
+
+    private int normalizePageSize(Integer size) {
+        return size == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+
+    // Build a page from pageSize + 1 rows ordered by (createdAt, id) descending
+    private NotificationPageDTO toPage(List<Notification> notifications, int pageSize) {
+        boolean hasMore = notifications.size() > pageSize;
+        if (hasMore) {
+            notifications = notifications.subList(0, pageSize);
+        }
+
+        List<NotificationDTO> dtos = notifications.stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore && !notifications.isEmpty()) {
+            Notification last = notifications.get(notifications.size() - 1);
+            nextCursor = new NotificationCursor(last.getCreatedAt(), last.getId()).encode();
+        }
+        return new NotificationPageDTO(dtos, nextCursor, hasMore);
+    }
+
+    // Get count of unread notifications (maintained counter, no table scan)
     public long getUnreadNotificationCount(Integer userId) {
-        return notificationRepository.countUnreadByUserId(userId);
+        return notificationCounterService.getUnreadCount(userId);
     }    // Create notification when a friend/followed user posts
     public NotificationDTO createFriendPostNotification(Integer postAuthorId, Long postId) {
         User postAuthor = userRepository.findById(postAuthorId)
                 .orElseThrow(() -> new RuntimeException("Post author not found"));
-        Post post = postRepository.findById(postId)
-                .orElseThrow(() -> new RuntimeException("Post not found"));
+        if (!postRepository.existsById(postId)) {
+            throw new RuntimeException("Post not found");
+        }
 
         // Use Set to avoid duplicate notifications
         Set<Integer> recipientIds = new HashSet<>();
 
-        // Get all friends of the post author
-        List<Friend> friendships = friendRepository.findAll().stream()
-                .filter(friend -> friend.getUser1().getId().equals(postAuthorId) || 
-                                 friend.getUser2().getId().equals(postAuthorId))
-                .collect(Collectors.toList());
-
-        // Add friends to recipients
-        friendships.forEach(friendship -> {
-            User friend = friendship.getUser1().getId().equals(postAuthorId) ? 
-                         friendship.getUser2() : friendship.getUser1();
-            recipientIds.add(friend.getId());
-        });
+        // Get all friends of the post author (indexed lookup on user1_id / user2_id)
+        recipientIds.addAll(friendRepository.findFriendIdsByUserId(postAuthorId));
 
         // Get all followers of the post author
         List<Integer> followerIds = followService.getFollowerIds(postAuthorId);
         recipientIds.addAll(followerIds);
 
-        // Create notifications for each unique recipient (friends + followers)
-        List<Notification> notifications = recipientIds.stream()
-                .map(recipientId -> {
-                    User recipient = userRepository.findById(recipientId)
-                            .orElse(null);
-                    if (recipient == null) return null;                    Notification notification = new Notification();
-                    notification.setRecipientUser(recipient);
-                    notification.setActorUser(postAuthor);
-                    notification.setType("FRIEND_POST");
-                    notification.setPost(post);
-                    notification.setContent("đã đăng bài viết mới");
-                    notification.setReadStatus(false);
-                    
-                    return notificationRepository.save(notification);
-                })
-                .filter(notification -> notification != null)
-                .collect(Collectors.toList());
+        // Bulk insert one row per unique recipient (friends + followers) by id reference
+        recipientIds.remove(postAuthorId);
+        List<Integer> recipients = new ArrayList<>(recipientIds);
+        // Skips recipients already notified about this post, so outbox redelivery is harmless
+        List<Long> ids = notificationBulkWriter.insertNewForRecipients(
+                recipients, postAuthorId, "FRIEND_POST", postId, null, "đã đăng bài viết mới");
 
-        // Return the first notification as DTO (for API response)
-        if (!notifications.isEmpty()) {
-            return convertToDTO(notifications.get(0));
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<NotificationDTO> created = new ArrayList<>();
+        for (int i = 0; i < recipients.size(); i++) {
+            if (ids.get(i) == null) {
+                continue; // Already notified, or the chunk failed
+            }
+            NotificationDTO dto = new NotificationDTO();
+            dto.setId(ids.get(i));
+            dto.setRecipientUserId(recipients.get(i));
+            dto.setType("FRIEND_POST");
+            dto.setPostId(postId);
+            dto.setContent("đã đăng bài viết mới");
+            dto.setReadStatus(false);
+            dto.setCreatedAt(createdAt);
+            setActor(dto, postAuthor);
+            created.add(dto);
         }
-        return null;
+        publishCreated(created);
+
+        // Return the first notification as DTO (for API response)
+        return created.isEmpty() ? null : created.get(0);
     }    // Create notification when someone comments on a user's post
     public NotificationDTO createCommentNotification(Integer commentAuthorId, Long postId, Long commentId) {
         User commentAuthor = userRepository.findById(commentAuthorId)
@@ -123,7 +227,13 @@ public class NotificationService {    private final NotificationRepository notif
         
         if (!areFriends && !isFollowing) {
             return null;
-        }        Notification notification = new Notification();
+        }
+
+        if (aggregationEnabled) {
+            return upsertGrouped(post.getUser(), commentAuthor, "COMMENT", post, comment, "đã bình luận bài viết của bạn");
+        }
+
+        Notification notification = new Notification();
         notification.setRecipientUser(post.getUser());
         notification.setActorUser(commentAuthor);
         notification.setType("COMMENT");
@@ -133,7 +243,9 @@ public class NotificationService {    private final NotificationRepository notif
         notification.setReadStatus(false);
 
         Notification savedNotification = notificationRepository.save(notification);
-        return convertToDTO(savedNotification);
+        NotificationDTO dto = convertToDTO(savedNotification);
+        publishCreated(List.of(dto));
+        return dto;
     }    // Create notification when someone likes a user's post
     public NotificationDTO createLikeNotification(Integer likerId, Long postId) {
         User liker = userRepository.findById(likerId)
@@ -152,7 +264,13 @@ public class NotificationService {    private final NotificationRepository notif
         
         if (!areFriends && !isFollowing) {
             return null;
-        }        Notification notification = new Notification();
+        }
+
+        if (aggregationEnabled) {
+            return upsertGrouped(post.getUser(), liker, "LIKE", post, null, "đã thích bài viết của bạn");
+        }
+
+        Notification notification = new Notification();
         notification.setRecipientUser(post.getUser());
         notification.setActorUser(liker);
         notification.setType("LIKE");
@@ -161,36 +279,178 @@ public class NotificationService {    private final NotificationRepository notif
         notification.setReadStatus(false);
 
         Notification savedNotification = notificationRepository.save(notification);
-        return convertToDTO(savedNotification);
+        NotificationDTO dto = convertToDTO(savedNotification);
+        publishCreated(List.of(dto));
+        return dto;
+    }
+
+    /**
+     * Fold a LIKE/COMMENT into the recipient's grouped row for this post and time bucket,
+     * creating the row on the first event. The row takes the latest actor/comment, becomes unread
+     * again and moves to the top; the unread counter only moves when the row was read before.
+     */
+    private NotificationDTO upsertGrouped(User recipient, User actor, String type, Post post, Comment comment, String content) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime bucket = bucketStart(now);
+        Optional<Notification> existing = notificationRepository.findGroup(recipient.getId(), post.getId(), type, bucket);
+
+        if (existing.isEmpty()) {
+            Notification notification = new Notification();
+            notification.setRecipientUser(recipient);
+            notification.setActorUser(actor);
+            notification.setType(type);
+            notification.setPost(post);
+            notification.setComment(comment);
+            notification.setContent(content);
+            notification.setReadStatus(false);
+            notification.setCreatedAt(now);
+            notification.setActorCount(1);
+            notification.setRecentActorIds(String.valueOf(actor.getId()));
+            notification.setGroupBucket(bucket);
+            try {
+                NotificationDTO dto = convertToDTO(notificationRepository.save(notification));
+                publishCreated(List.of(dto));
+                return dto;
+            } catch (DataIntegrityViolationException e) {
+                // Another event created the group concurrently - fold into it instead
+                existing = notificationRepository.findGroup(recipient.getId(), post.getId(), type, bucket);
+                if (existing.isEmpty()) {
+                    throw e;
+                }
+            }
+        }
+
+        // Read-modify-write under the row lock: concurrent events on one group would otherwise
+        // drop a recent actor or both count (or both skip) the read -> unread transition
+        Long groupId = existing.get().getId();
+        GroupBump bump = transactionTemplate.execute(status -> {
+            Notification locked = notificationRepository.findByIdForUpdate(groupId)
+                    .orElseThrow(() -> new RuntimeException("Notification group not found"));
+            boolean read = Boolean.TRUE.equals(locked.getReadStatus());
+            List<Integer> recentActors = parseActorIds(locked.getRecentActorIds());
+            // Repeat actions by the same user (unlike/like again, several comments) don't add an actor
+            int delta = recentActors.contains(actor.getId()) ? 0 : 1;
+            recentActors.remove(actor.getId());
+            recentActors.add(0, actor.getId());
+            if (recentActors.size() > MAX_RECENT_ACTORS) {
+                recentActors = recentActors.subList(0, MAX_RECENT_ACTORS);
+            }
+            String actorIds = recentActors.stream().map(String::valueOf).collect(Collectors.joining(","));
+            notificationRepository.bumpGroup(groupId, delta, actor, comment, actorIds, now);
+            return new GroupBump(locked, read, delta, actorIds);
+        });
+        Notification group = bump.group();
+        boolean wasRead = bump.wasRead();
+        int actorDelta = bump.actorDelta();
+        String recentActorIds = bump.recentActorIds();
+
+        group.setActorCount(group.getActorCount() + actorDelta);
+        group.setActorUser(actor);
+        group.setComment(comment);
+        group.setRecentActorIds(recentActorIds);
+        group.setReadStatus(false);
+        group.setCreatedAt(now);
+        NotificationDTO dto = convertToDTO(group);
+        if (wasRead) {
+            notificationCounterService.adjustUnread(recipient.getId(), 1);
+        }
+        eventPublisher.publishEvent(new NotificationCreatedEvent(List.of(dto)));
+        return dto;
+    }
+
+    // Buckets are aligned to UTC multiples of notification.aggregation.bucket-hours
+    private LocalDateTime bucketStart(LocalDateTime time) {
+        long epochHour = time.toEpochSecond(ZoneOffset.UTC) / 3600;
+        long startHour = epochHour - Math.floorMod(epochHour, (long) aggregationBucketHours);
+        return LocalDateTime.ofEpochSecond(startHour * 3600, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Position in the notification list, serialized as a URL-safe base64 token so clients treat it as opaque
+     */
+    private record NotificationCursor(LocalDateTime createdAt, Long id) {
+
+        String encode() {
+            String raw = createdAt.toString() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static NotificationCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                LocalDateTime createdAt = LocalDateTime.parse(raw.substring(0, separator));
+                Long id = Long.parseLong(raw.substring(separator + 1));
+                return new NotificationCursor(createdAt, id);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid notification cursor");
+            }
+        }
+    }
+
+    private static List<Integer> parseActorIds(String actorIds) {
+        List<Integer> ids = new ArrayList<>();
+        if (actorIds != null && !actorIds.isBlank()) {
+            Arrays.stream(actorIds.split(",")).map(String::trim).map(Integer::valueOf).forEach(ids::add);
+        }
+        return ids;
     }
 
     // Helper method to check if two users are friends
     private boolean areFriends(Integer userId1, Integer userId2) {
-        return friendRepository.findAll().stream()
-                .anyMatch(friend -> 
-                    (friend.getUser1().getId().equals(userId1) && friend.getUser2().getId().equals(userId2)) ||
-                    (friend.getUser1().getId().equals(userId2) && friend.getUser2().getId().equals(userId1))
-                );
+        return friendRepository.existsBetweenUsers(userId1, userId2);
     }
 
     public void markAsRead(Long notificationId) {
         Notification notification = notificationRepository.findById(notificationId)
                 .orElseThrow(() -> new RuntimeException("Notification not found"));
-        
-        notification.setReadStatus(true);
-        notificationRepository.save(notification);
-    }    public void markAllAsRead(Integer userId) {
-        List<Notification> notifications = notificationRepository.findByRecipientUserId(userId)
-                .stream()
-                .filter(n -> !n.getReadStatus())
-                .collect(Collectors.toList());
-        
-        notifications.forEach(n -> n.setReadStatus(true));
-        notificationRepository.saveAll(notifications);
+
+        // Only the request that actually flips the row moves the counter
+        if (notificationRepository.markAsReadIfUnread(notificationId) > 0) {
+            notificationCounterService.adjustUnread(notification.getRecipientUser().getId(), -1);
+        }
+    }
+
+    // Single UPDATE instead of loading and saving every unread row
+    public int markAllAsRead(Integer userId) {
+        int updated = notificationRepository.markAllAsRead(userId);
+        notificationCounterService.resetUnread(userId);
+        return updated;
+    }
+
+    // Mark everything up to a point in time as read (e.g. what the user has scrolled past)
+    public int markAsReadBefore(Integer userId, LocalDateTime before) {
+        int updated = notificationRepository.markAsReadBefore(userId, before);
+        if (updated > 0) {
+            notificationCounterService.adjustUnread(userId, -updated);
+        }
+        return updated;
+    }
+
+    /**
+     * Purge read notifications past the retention window - runs daily at 4:30 AM when
+     * notification.retention.enabled is set; off by default so read history is kept
+     */
+    @Scheduled(cron = "0 30 4 * * ?")
+    public int deleteReadOlderThan() {
+        if (!retentionEnabled) {
+            return 0;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(readRetentionDays);
+        int deleted = notificationRepository.deleteReadOlderThan(cutoff);
+        System.out.println("Deleted " + deleted + " read notifications older than " + readRetentionDays + " days");
+        return deleted;
     }
 
     public void deleteNotification(Long notificationId) {
-        notificationRepository.deleteById(notificationId);
+        notificationRepository.findById(notificationId).ifPresent(notification -> {
+            // Decrement only if the row was still unread when this delete removed it
+            if (notificationRepository.deleteIfUnread(notificationId) > 0) {
+                notificationCounterService.adjustUnread(notification.getRecipientUser().getId(), -1);
+            } else {
+                notificationRepository.deleteById(notificationId);
+            }
+        });
     }    private NotificationDTO convertToDTO(Notification notification) {
         NotificationDTO dto = new NotificationDTO();
         dto.setId(notification.getId());
@@ -203,11 +463,14 @@ public class NotificationService {    private final NotificationRepository notif
         dto.setRecipientUserId(notification.getRecipientUser().getId());
         
         // Set actor user info
-        dto.setActorUserId(notification.getActorUser().getId());
-        dto.setActorUserName(notification.getActorUser().getUsername());
-        if (notification.getActorUser().getUserData() != null) {
-            dto.setActorDisplayName(notification.getActorUser().getUserData().getDisplayName());
-            dto.setActorProfilePicture(notification.getActorUser().getUserData().getProfilePicture());
+        setActor(dto, notification.getActorUser());
+
+        // Aggregated rows render as "<latest actor> và N người khác <content>"
+        int actorCount = notification.getActorCount() != null ? notification.getActorCount() : 1;
+        dto.setActorCount(actorCount);
+        dto.setRecentActorIds(parseActorIds(notification.getRecentActorIds()));
+        if (actorCount > 1) {
+            dto.setContent("và " + (actorCount - 1) + " người khác " + notification.getContent());
         }
         
         // Set post info if exists
@@ -223,6 +486,30 @@ public class NotificationService {    private final NotificationRepository notif
         return dto;
     }
 
+    private void setActor(NotificationDTO dto, User actor) {
+        dto.setActorUserId(actor.getId());
+        dto.setActorUserName(actor.getUsername());
+        if (actor.getUserData() != null) {
+            dto.setActorDisplayName(actor.getUserData().getDisplayName());
+            dto.setActorProfilePicture(actor.getUserData().getProfilePicture());
+        }
+    }
+
+    // Bump unread counters and push to the recipients' live sessions (after commit)
+    private void publishCreated(List<NotificationDTO> notifications) {
+        if (notifications.isEmpty()) {
+            return;
+        }
+        if (notifications.size() == 1) {
+            notificationCounterService.adjustUnread(notifications.get(0).getRecipientUserId(), 1);
+        } else {
+            notificationCounterService.incrementUnread(notifications.stream()
+                    .map(NotificationDTO::getRecipientUserId)
+                    .collect(Collectors.toList()));
+        }
+        eventPublisher.publishEvent(new NotificationCreatedEvent(notifications));
+    }
+
     // === ASYNC NOTIFICATION METHODS FOR SOCIAL MEDIA PERFORMANCE ===
     
     /**
@@ -276,14 +563,30 @@ public class NotificationService {    private final NotificationRepository notif
     @Async("notificationExecutor")
     public CompletableFuture<Void> processBulkNotificationsAsync(List<Notification> notifications) {
         try {
-            // Process notifications in parallel streams for maximum efficiency
-            notifications.parallelStream().forEach(notification -> {
-                try {
-                    notificationRepository.save(notification);
-                } catch (Exception e) {
-                    System.err.println("Failed to save notification: " + e.getMessage());
+            // Multi-row inserts by id reference instead of one save/transaction per notification
+            List<NotificationBulkWriter.NotificationRow> rows = notifications.stream()
+                    .map(notification -> new NotificationBulkWriter.NotificationRow(
+                            notification.getRecipientUser().getId(),
+                            notification.getActorUser().getId(),
+                            notification.getType(),
+                            notification.getPost() != null ? notification.getPost().getId() : null,
+                            notification.getComment() != null ? notification.getComment().getId() : null,
+                            notification.getContent()))
+                    .collect(Collectors.toList());
+            List<Long> ids = notificationBulkWriter.insertAll(rows);
+
+            List<NotificationDTO> created = new ArrayList<>();
+            for (int i = 0; i < notifications.size(); i++) {
+                if (ids.get(i) != null) {
+                    Notification notification = notifications.get(i);
+                    notification.setId(ids.get(i));
+                    if (notification.getCreatedAt() == null) {
+                        notification.setCreatedAt(LocalDateTime.now());
+                    }
+                    created.add(convertToDTO(notification));
                 }
-            });
+            }
+            publishCreated(created);
             return CompletableFuture.completedFuture(null);
         } catch (Exception e) {
             System.err.println("Bulk notification processing failed: " + e.getMessage());
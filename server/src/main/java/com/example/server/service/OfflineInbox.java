@@ -0,0 +1,133 @@
+package com.example.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user store-and-forward queue for chat frames addressed to users with no open WebSocket session.
+ * Entries are keyed by a per-user sequence that only grows, so a reconnecting client resumes
+ * after the last sequence it saw and receives only the delta. The sequence is taken from the user's
+ * offline_inbox_seqs row, whose lock is held until the insert commits, so sequences become visible
+ * in order and acknowledging "up to n" never covers an entry that was not yet readable. Each user keeps at most
+ * chat.offline.max-per-user entries for chat.offline.ttl-hours; older ones are left to the room history.
+ */
+@Component
+public class OfflineInbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(OfflineInbox.class);
+
+    public record Entry(long seq, String frame) {}
+
+    /**
+     * Pending entries in sequence order; truncated if older entries than these were still queued
+     */
+    public record Pending(List<Entry> entries, boolean truncated) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${chat.offline.max-per-user:500}")
+    private int maxPerUser;
+
+    @Value("${chat.offline.ttl-hours:72}")
+    private int ttlHours;
+
+    private final AtomicLong stored = new AtomicLong();
+    private final AtomicLong drained = new AtomicLong();
+    private final AtomicLong acknowledged = new AtomicLong();
+    private final AtomicLong purged = new AtomicLong();
+
+    public OfflineInbox(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Queue the same frame for every user, in one statement that also takes each user's next sequence
+     */
+    public void store(Collection<Integer> userIds, String frame) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        try {
+            // Sorted and distinct, so concurrent stores lock the sequence rows in the same order
+            Integer[] ids = new TreeSet<>(userIds).toArray(new Integer[0]);
+            int inserted = jdbcTemplate.update(connection -> {
+                PreparedStatement statement = connection.prepareStatement(
+                    "WITH seqs AS (INSERT INTO offline_inbox_seqs (user_id, last_seq) SELECT u, 1 FROM unnest(?) u ORDER BY u " +
+                        "ON CONFLICT (user_id) DO UPDATE SET last_seq = offline_inbox_seqs.last_seq + 1 " +
+                        "RETURNING user_id, last_seq) " +
+                    "INSERT INTO offline_messages (user_id, seq, frame) SELECT user_id, last_seq, ? FROM seqs");
+                statement.setArray(1, connection.createArrayOf("integer", ids));
+                statement.setString(2, frame);
+                return statement;
+            });
+            stored.addAndGet(inserted);
+        } catch (Exception e) {
+            logger.error("Failed to store offline message for {} users", userIds.size(), e);
+        }
+    }
+
+    /**
+     * Entries after the given sequence, at most max-per-user of the newest, skipping expired ones
+     */
+    public Pending pending(Integer userId, long afterSeq) {
+        List<Entry> entries = jdbcTemplate.query(
+            "SELECT seq, frame FROM offline_messages WHERE user_id = ? AND seq > ? " +
+                "AND created_at > CURRENT_TIMESTAMP - make_interval(hours => ?) ORDER BY seq DESC LIMIT ?",
+            (rs, rowNum) -> new Entry(rs.getLong("seq"), rs.getString("frame")),
+            userId, afterSeq, ttlHours, maxPerUser + 1);
+        boolean truncated = entries.size() > maxPerUser;
+        List<Entry> page = new ArrayList<>(truncated ? entries.subList(0, maxPerUser) : entries);
+        Collections.reverse(page);
+        drained.addAndGet(page.size());
+        return new Pending(page, truncated);
+    }
+
+    /**
+     * Drop everything up to and including the sequence the client confirmed
+     */
+    public int acknowledge(Integer userId, long upToSeq) {
+        int deleted = jdbcTemplate.update("DELETE FROM offline_messages WHERE user_id = ? AND seq <= ?", userId, upToSeq);
+        acknowledged.addAndGet(deleted);
+        return deleted;
+    }
+
+    /**
+     * Enforce the TTL and the per-user bound - runs every 10 minutes by default
+     */
+    @Scheduled(fixedDelayString = "${chat.offline.purge-interval-ms:600000}")
+    public void purge() {
+        try {
+            int expired = jdbcTemplate.update(
+                "DELETE FROM offline_messages WHERE created_at < CURRENT_TIMESTAMP - make_interval(hours => ?)", ttlHours);
+            int overflow = jdbcTemplate.update(
+                "DELETE FROM offline_messages WHERE id IN (SELECT id FROM (SELECT id, ROW_NUMBER() OVER " +
+                    "(PARTITION BY user_id ORDER BY seq DESC) AS rn FROM offline_messages) ranked WHERE rn > ?)",
+                maxPerUser);
+            purged.addAndGet(expired + overflow);
+            if (expired + overflow > 0) {
+                logger.info("Purged {} expired and {} overflowing offline messages", expired, overflow);
+            }
+        } catch (Exception e) {
+            logger.error("Failed to purge offline messages", e);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("maxPerUser", maxPerUser);
+        stats.put("ttlHours", ttlHours);
+        stats.put("stored", stored.get());
+        stats.put("drained", drained.get());
+        stats.put("acknowledged", acknowledged.get());
+        stats.put("purged", purged.get());
+        return stats;
+    }
+}
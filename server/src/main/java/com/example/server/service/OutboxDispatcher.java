@@ -0,0 +1,236 @@
+package com.example.server.service;
+
+import com.example.server.model.Entity.OutboxEvent;
+import com.example.server.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Drains the outbox in batches. Each batch is claimed in a short transaction (SKIP LOCKED, then the
+ * rows are leased by pushing next_attempt_at forward), handled on the notification executor, and then
+ * deleted on success or rescheduled with exponential backoff. A node that dies mid-batch simply lets the
+ * lease expire, so every event runs at least once - handlers must tolerate repeats.
+ * The scheduler thread never waits for handlers: it claims only up to outbox.max-in-flight events, and
+ * an event the executor would run on the scheduler thread (CallerRunsPolicy) is released for the next run.
+ */
+@Component
+public class OutboxDispatcher {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final TaskExecutor notificationExecutor;
+    private final Map<String, Consumer<Map<String, Object>>> handlers = new HashMap<>();
+
+    @Value("${outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${outbox.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${outbox.max-in-flight:200}")
+    private int maxInFlight;
+
+    @Value("${outbox.lease-seconds:60}")
+    private long leaseSeconds;
+
+    @Value("${outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${outbox.backoff-base-ms:1000}")
+    private long backoffBaseMs;
+
+    // Delivery metrics
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong deadLettered = new AtomicLong();
+    private final AtomicLong released = new AtomicLong();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile LocalDateTime lastRunAt;
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository,
+                            TransactionTemplate transactionTemplate,
+                            ObjectMapper objectMapper,
+                            @Qualifier("notificationExecutor") TaskExecutor notificationExecutor,
+                            NotificationService notificationService,
+                            TimelineService timelineService) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.notificationExecutor = notificationExecutor;
+
+        handlers.put(OutboxService.TIMELINE_FAN_OUT, payload -> timelineService.fanOutPost(
+                intValue(payload, "authorId"), longValue(payload, "postId"),
+                Instant.parse((String) payload.get("createdDate")).atZone(ZoneOffset.UTC)));
+        handlers.put(OutboxService.FRIEND_POST_NOTIFICATION, payload -> notificationService.createFriendPostNotification(
+                intValue(payload, "postAuthorId"), longValue(payload, "postId")));
+        handlers.put(OutboxService.COMMENT_NOTIFICATION, payload -> notificationService.createCommentNotification(
+                intValue(payload, "commentAuthorId"), longValue(payload, "postId"), longValue(payload, "commentId")));
+        handlers.put(OutboxService.LIKE_NOTIFICATION, payload -> notificationService.createLikeNotification(
+                intValue(payload, "likerId"), longValue(payload, "postId")));
+    }
+
+    /**
+     * Hand due events to the executor - runs every 500ms by default, up to maxBatchesPerRun full batches
+     * per run while fewer than maxInFlight events are still being handled
+     */
+    @Scheduled(fixedDelayString = "${outbox.poll-interval-ms:500}")
+    public void drain() {
+        lastRunAt = LocalDateTime.now();
+        for (int i = 0; i < maxBatchesPerRun; i++) {
+            int limit = Math.min(batchSize, maxInFlight - inFlight.get());
+            if (limit <= 0) {
+                return;
+            }
+            List<OutboxEvent> batch = claimBatch(limit);
+            if (batch.isEmpty()) {
+                return;
+            }
+            dispatch(batch);
+            if (batch.size() < limit) {
+                return;
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        LocalDateTime oldestPending = outboxEventRepository.findOldestPendingCreatedAt();
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("pending", outboxEventRepository.countByStatus(OutboxEvent.STATUS_PENDING));
+        stats.put("failed", outboxEventRepository.countByStatus(OutboxEvent.STATUS_FAILED));
+        stats.put("lagMillis", oldestPending != null ? Duration.between(oldestPending, LocalDateTime.now()).toMillis() : 0);
+        stats.put("delivered", delivered.get());
+        stats.put("retried", retried.get());
+        stats.put("deadLettered", deadLettered.get());
+        stats.put("released", released.get());
+        stats.put("inFlight", inFlight.get());
+        stats.put("maxInFlight", maxInFlight);
+        stats.put("batchSize", batchSize);
+        stats.put("maxAttempts", maxAttempts);
+        stats.put("lastRunAt", lastRunAt);
+        return stats;
+    }
+
+    // Lock due rows and lease them so no other node picks them up while they are being handled
+    private List<OutboxEvent> claimBatch(int limit) {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxEventRepository.findDueForUpdate(now, PageRequest.of(0, limit));
+            for (OutboxEvent event : due) {
+                event.setAttempts(event.getAttempts() + 1);
+                event.setNextAttemptAt(now.plusSeconds(leaseSeconds));
+            }
+            return due;
+        });
+        return batch != null ? batch : List.of();
+    }
+
+    private void dispatch(List<OutboxEvent> batch) {
+        Thread scheduler = Thread.currentThread();
+        for (OutboxEvent event : batch) {
+            inFlight.incrementAndGet();
+            CompletableFuture.runAsync(() -> {
+                        if (Thread.currentThread() == scheduler) {
+                            // Executor saturated and CallerRunsPolicy handed the work back to us
+                            throw new RejectedExecutionException("Notification executor is saturated");
+                        }
+                        handle(event);
+                    }, notificationExecutor)
+                    .whenComplete((ignored, error) -> {
+                        try {
+                            complete(event, error != null && error.getCause() != null ? error.getCause() : error);
+                        } finally {
+                            inFlight.decrementAndGet();
+                        }
+                    });
+        }
+    }
+
+    private void complete(OutboxEvent event, Throwable cause) {
+        if (cause == null) {
+            delivered.incrementAndGet();
+            try {
+                outboxEventRepository.deleteById(event.getId());
+            } catch (Exception e) {
+                // Left for redelivery once the lease expires
+                System.err.println("Could not remove delivered outbox event " + event.getId() + ": " + e.getMessage());
+            }
+        } else if (cause instanceof RejectedExecutionException) {
+            release(event);
+        } else {
+            reschedule(event, cause);
+        }
+    }
+
+    // Never handled - give the lease back without counting an attempt
+    private void release(OutboxEvent event) {
+        event.setAttempts(event.getAttempts() - 1);
+        event.setNextAttemptAt(LocalDateTime.now());
+        released.incrementAndGet();
+        try {
+            outboxEventRepository.save(event);
+        } catch (Exception e) {
+            // The lease expires on its own and the event is retried
+            System.err.println("Could not release outbox event " + event.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private void handle(OutboxEvent event) {
+        Consumer<Map<String, Object>> handler = handlers.get(event.getEventType());
+        if (handler == null) {
+            throw new IllegalStateException("No outbox handler for " + event.getEventType());
+        }
+        try {
+            handler.accept(objectMapper.readValue(event.getPayload(), new TypeReference<Map<String, Object>>() {}));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException("Unreadable outbox payload: " + e.getMessage(), e);
+        }
+    }
+
+    private void reschedule(OutboxEvent event, Throwable error) {
+        event.setLastError(error.getClass().getSimpleName() + ": " + error.getMessage());
+        if (event.getAttempts() >= maxAttempts) {
+            event.setStatus(OutboxEvent.STATUS_FAILED);
+            deadLettered.incrementAndGet();
+            System.err.println("Outbox event " + event.getId() + " (" + event.getEventType() + ") failed permanently: " + error.getMessage());
+        } else {
+            long delayMs = backoffBaseMs * (1L << Math.min(event.getAttempts() - 1, 16));
+            event.setNextAttemptAt(LocalDateTime.now().plusNanos(delayMs * 1_000_000));
+            retried.incrementAndGet();
+        }
+        try {
+            outboxEventRepository.save(event);
+        } catch (Exception e) {
+            // The lease expires on its own and the event is retried
+            System.err.println("Could not reschedule outbox event " + event.getId() + ": " + e.getMessage());
+        }
+    }
+
+    private static Integer intValue(Map<String, Object> payload, String key) {
+        return ((Number) payload.get(key)).intValue();
+    }
+
+    private static Long longValue(Map<String, Object> payload, String key) {
+        return ((Number) payload.get(key)).longValue();
+    }
+}
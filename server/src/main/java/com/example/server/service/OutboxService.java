@@ -0,0 +1,45 @@
+package com.example.server.service;
+
+import com.example.server.model.Entity.OutboxEvent;
+import com.example.server.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+/**
+ * Records side effects (notifications, timeline fan-out) in the outbox table.
+ * Call it inside the transaction that makes the domain change: the event commits or rolls back with it,
+ * and OutboxDispatcher delivers it afterwards - at least once, with retries, even across restarts.
+ */
+@Service
+public class OutboxService {
+
+    public static final String TIMELINE_FAN_OUT = "TIMELINE_FAN_OUT";
+    public static final String FRIEND_POST_NOTIFICATION = "FRIEND_POST_NOTIFICATION";
+    public static final String COMMENT_NOTIFICATION = "COMMENT_NOTIFICATION";
+    public static final String LIKE_NOTIFICATION = "LIKE_NOTIFICATION";
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public OutboxService(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String eventType, Map<String, Object> payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventType(eventType);
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Could not serialize outbox payload for " + eventType, e);
+        }
+        outboxEventRepository.save(event);
+    }
+}
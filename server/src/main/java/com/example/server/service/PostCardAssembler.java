@@ -0,0 +1,102 @@
+package com.example.server.service;
+
+import com.example.server.dto.*;
+import com.example.server.model.Entity.PostStats;
+import com.example.server.repository.PostMediaRepository;
+import com.example.server.repository.PostRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Builds PostDTOs for a list of post ids with a fixed number of set-based queries per batch:
+ * one projection for post/author/type/location, one for media and one for the engagement counters.
+ * Ids are processed in IN-batches so even the legacy full list never sends an unbounded IN clause.
+ */
+@Component
+public class PostCardAssembler {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final PostRepository postRepository;
+    private final PostMediaRepository postMediaRepository;
+    private final PostStatsService postStatsService;
+
+    public PostCardAssembler(PostRepository postRepository, PostMediaRepository postMediaRepository,
+                             PostStatsService postStatsService) {
+        this.postRepository = postRepository;
+        this.postMediaRepository = postMediaRepository;
+        this.postStatsService = postStatsService;
+    }
+
+    /**
+     * Assemble cards in the same order as the given ids. Ids that no longer exist are skipped.
+     */
+    public List<PostDTO> assemble(List<Long> postIds) {
+        List<PostDTO> result = new ArrayList<>(postIds.size());
+        for (int from = 0; from < postIds.size(); from += BATCH_SIZE) {
+            List<Long> batch = postIds.subList(from, Math.min(from + BATCH_SIZE, postIds.size()));
+            result.addAll(assembleBatch(batch));
+        }
+        return result;
+    }
+
+    public Optional<PostDTO> assembleOne(Long postId) {
+        return assemble(List.of(postId)).stream().findFirst();
+    }
+
+    private List<PostDTO> assembleBatch(List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Map<Long, PostCardRow> rows = postRepository.findPostCardsByIdIn(postIds).stream()
+                .collect(Collectors.toMap(PostCardRow::getPostId, row -> row));
+        Map<Long, List<PostMediaDTO>> media = postMediaRepository.findMediaByPostIdIn(postIds).stream()
+                .collect(Collectors.groupingBy(PostMediaDTO::getPostId));
+        Map<Long, PostStats> stats = postStatsService.getStatsForPosts(rows.keySet());
+
+        List<PostDTO> cards = new ArrayList<>(postIds.size());
+        for (Long postId : postIds) {
+            PostCardRow row = rows.get(postId);
+            if (row == null) {
+                continue; // Deleted between the id query and the card query
+            }
+            cards.add(toDTO(row, media.getOrDefault(postId, new ArrayList<>()), stats.get(postId)));
+        }
+        return cards;
+    }
+
+    private PostDTO toDTO(PostCardRow row, List<PostMediaDTO> media, PostStats stats) {
+        PostDTO dto = new PostDTO();
+        dto.setId(row.getPostId());
+        dto.setContent(row.getContent());
+        dto.setCreatedDate(row.getCreatedDate());
+        dto.setUpdatedAt(row.getUpdatedAt());
+
+        UserDTO authorDTO = new UserDTO();
+        authorDTO.setId(row.getAuthorId());
+        authorDTO.setUsername(row.getAuthorUsername());
+        authorDTO.setDisplayName(row.getAuthorDisplayName());
+        authorDTO.setBio(row.getAuthorBio());
+        authorDTO.setProfilePicture(row.getAuthorProfilePicture());
+        dto.setAuthor(authorDTO);
+
+        dto.setType(new PostTypeDTO(row.getTypeId(), row.getTypeName()));
+        if (row.getLocationId() != null) {
+            dto.setLocation(new LocationDTO(row.getLocationId(), row.getLocationName()));
+        }
+
+        dto.setMedia(media);
+
+        if (stats != null) {
+            dto.setCommentsCount((int) stats.getCommentsCount());
+            dto.setLikesCount((int) stats.getLikesCount());
+            dto.setDislikesCount((int) stats.getDislikesCount());
+            dto.setBookmarksCount((int) stats.getBookmarksCount());
+            dto.setViewsCount(stats.getViewsCount());
+        }
+        return dto;
+    }
+}
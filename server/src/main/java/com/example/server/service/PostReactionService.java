@@ -11,9 +11,11 @@ import com.example.server.repository.UserRepository;
 import com.example.server.repository.ReactionTypeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -24,17 +26,23 @@ public class PostReactionService {
     private final PostRepository postRepository;
     private final UserRepository userRepository;
     private final ReactionTypeRepository reactionTypeRepository;
-    private final NotificationService notificationService;    public PostReactionService(PostReactionRepository postReactionRepository,
+    private final OutboxService outboxService;
+    private final PostStatsService postStatsService;    public PostReactionService(PostReactionRepository postReactionRepository,
                               PostRepository postRepository,
                               UserRepository userRepository,
                               ReactionTypeRepository reactionTypeRepository,
-                              NotificationService notificationService) {
+                              OutboxService outboxService,
+                              PostStatsService postStatsService) {
         this.postReactionRepository = postReactionRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
         this.reactionTypeRepository = reactionTypeRepository;
-        this.notificationService = notificationService;
-    }public PostReactionDTO addReaction(Long postId, Integer userId, Long reactionTypeId) {
+        this.outboxService = outboxService;
+        this.postStatsService = postStatsService;
+    }
+
+    @Transactional
+    public PostReactionDTO addReaction(Long postId, Integer userId, Long reactionTypeId) {
         Post post = postRepository.findById(postId)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
         User user = userRepository.findById(userId)
@@ -47,9 +55,11 @@ public class PostReactionService {
 
         PostReaction reaction;
         boolean isNewReaction = false;
+        Long previousReactionTypeId = null;
         if (existingReaction.isPresent()) {
             // Update existing reaction
             reaction = existingReaction.get();
+            previousReactionTypeId = reaction.getReactionType().getId();
             reaction.setReactionType(reactionType);
             reaction.setTimestamp(LocalDateTime.now());
         } else {
@@ -62,26 +72,31 @@ public class PostReactionService {
             isNewReaction = true;
         }
 
-        PostReaction savedReaction = postReactionRepository.save(reaction);        // Trigger async like notification if it's a "like" reaction and user is not the post author
-        // Async processing ensures likes don't block user interaction in social media
-        try {
-            if (isNewReaction && reactionTypeId == 1L && !post.getUser().getId().equals(userId)) { // 1 = "like"
-                notificationService.createLikeNotificationAsync(
-                    savedReaction.getUser().getId(), 
-                    savedReaction.getPost().getId()
-                );
-            }
-        } catch (Exception e) {
-            // Log error but don't fail reaction creation
-            System.err.println("Failed to create async like notification: " + e.getMessage());
+        PostReaction savedReaction = postReactionRepository.save(reaction);
+
+        // Keep the post's reaction counters in step with this change
+        if (isNewReaction) {
+            postStatsService.adjustReaction(postId, reactionTypeId, 1);
+        } else if (!reactionTypeId.equals(previousReactionTypeId)) {
+            postStatsService.changeReaction(postId, previousReactionTypeId, reactionTypeId);
+        }
+        // Queue a like notification in this transaction if it's a "like" reaction and user is not the post author
+        if (isNewReaction && reactionTypeId == 1L && !post.getUser().getId().equals(userId)) { // 1 = "like"
+            outboxService.enqueue(OutboxService.LIKE_NOTIFICATION, Map.of(
+                "likerId", savedReaction.getUser().getId(),
+                "postId", savedReaction.getPost().getId()));
         }
         
         return convertToDTO(savedReaction);
-    }    public void removeReaction(Long postId, Integer userId) {
+    }
+
+    @Transactional
+    public void removeReaction(Long postId, Integer userId) {
         PostReaction reaction = postReactionRepository.findByPostIdAndUserId(postId, userId)
                 .orElseThrow(() -> new RuntimeException("Reaction not found"));
 
         postReactionRepository.delete(reaction);
+        postStatsService.adjustReaction(postId, reaction.getReactionType().getId(), -1);
     }    public List<PostReactionDTO> getReactionsByPostId(Long postId) {
         List<PostReaction> reactions = postReactionRepository.findByPostId(postId);
 
@@ -4,9 +4,17 @@ import com.example.server.dto.*;
 import com.example.server.exception.ProfanityException;
 import com.example.server.model.Entity.*;
 import com.example.server.repository.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import java.time.ZonedDateTime;
 import java.time.ZoneOffset;
@@ -19,8 +27,13 @@ public class PostService {
     private final PostMediaRepository postMediaRepository;
     private final UserRepository userRepository;
     private final LocationRepository locationRepository;
-    private final NotificationService notificationService;
+    private final OutboxService outboxService;
     private final ProfanityDetectionService profanityDetectionService;
+    private final PostStatsService postStatsService;
+    private final TimelineService timelineService;
+    private final PostCardAssembler postCardAssembler;
+    private final TransactionTemplate transactionTemplate;
+    private final NotificationCounterService notificationCounterService;
     
     // Additional repositories for cascade deletion
     private final NotificationRepository notificationRepository;
@@ -31,8 +44,12 @@ public class PostService {
     private final CommentRepository commentRepository;
     private final CommentReactionRepository commentReactionRepository;    public PostService(PostRepository postRepository, PostTypeRepository postTypeRepository, 
                       PostMediaRepository postMediaRepository, UserRepository userRepository,
-                      LocationRepository locationRepository, NotificationService notificationService,
+                      LocationRepository locationRepository, OutboxService outboxService,
                       ProfanityDetectionService profanityDetectionService,
+                      PostStatsService postStatsService, TimelineService timelineService,
+                      PostCardAssembler postCardAssembler,
+                      TransactionTemplate transactionTemplate,
+                      NotificationCounterService notificationCounterService,
                       NotificationRepository notificationRepository, BookmarkRepository bookmarkRepository,
                       PostReactionRepository postReactionRepository, PostViewRepository postViewRepository,
                       ReportRepository reportRepository, CommentRepository commentRepository,
@@ -42,8 +59,13 @@ public class PostService {
         this.postMediaRepository = postMediaRepository;
         this.userRepository = userRepository;
         this.locationRepository = locationRepository;
-        this.notificationService = notificationService;
+        this.outboxService = outboxService;
         this.profanityDetectionService = profanityDetectionService;
+        this.postStatsService = postStatsService;
+        this.timelineService = timelineService;
+        this.postCardAssembler = postCardAssembler;
+        this.transactionTemplate = transactionTemplate;
+        this.notificationCounterService = notificationCounterService;
         
         // Initialize cascade deletion repositories
         this.notificationRepository = notificationRepository;
@@ -55,19 +77,84 @@ public class PostService {
         this.commentReactionRepository = commentReactionRepository;
     }
 
+    public static final int DEFAULT_FEED_PAGE_SIZE = 20;
+    public static final int MAX_FEED_PAGE_SIZE = 50;
+
+    /**
+     * Get one page of the home feed using keyset pagination on (createdDate, id).
+     * The cursor is the opaque token returned as nextCursor by the previous page.
+     */
+    public PostPageDTO getFeedPage(String cursor, Integer size) {
+        int pageSize = normalizePageSize(size);
+        // Fetch one extra id to know whether another page exists
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+
+        List<Long> postIds;
+        if (cursor == null || cursor.isBlank()) {
+            postIds = postRepository.findFeedPageIds(pageable);
+        } else {
+            FeedCursor feedCursor = FeedCursor.decode(cursor);
+            postIds = postRepository.findFeedPageIdsBefore(feedCursor.createdDate(), feedCursor.id(), pageable);
+        }
+
+        return toPage(postIds, pageSize);
+    }
+
+    /**
+     * Get one page of the user's personalized timeline (friends, followed users and own posts).
+     * Uses the same opaque cursor format as the home feed.
+     */
+    public PostPageDTO getTimelinePage(Integer userId, String cursor, Integer size) {
+        int pageSize = normalizePageSize(size);
+
+        List<Long> postIds;
+        if (cursor == null || cursor.isBlank()) {
+            postIds = timelineService.readTimeline(userId, null, null, pageSize + 1);
+        } else {
+            FeedCursor feedCursor = FeedCursor.decode(cursor);
+            postIds = timelineService.readTimeline(userId, feedCursor.createdDate(), feedCursor.id(), pageSize + 1);
+        }
+
+        return toPage(postIds, pageSize);
+    }
+
+    private int normalizePageSize(Integer size) {
+        return size == null ? DEFAULT_FEED_PAGE_SIZE : Math.max(1, Math.min(size, MAX_FEED_PAGE_SIZE));
+    }
+
+    // Build a page from pageSize + 1 ids ordered by (createdDate, id) descending
+    private PostPageDTO toPage(List<Long> postIds, int pageSize) {
+        boolean hasMore = postIds.size() > pageSize;
+        if (hasMore) {
+            postIds = postIds.subList(0, pageSize);
+        }
+
+        List<PostDTO> posts = postCardAssembler.assemble(postIds);
+
+        String nextCursor = null;
+        if (hasMore && !posts.isEmpty()) {
+            PostDTO last = posts.get(posts.size() - 1);
+            nextCursor = new FeedCursor(last.getCreatedDate(), last.getId()).encode();
+        }
+
+        return new PostPageDTO(posts, nextCursor, hasMore);
+    }
+
+    // Legacy unbounded feed - loads every post, only used when explicitly requested
     public List<PostDTO> getAllPosts() {
-        return postRepository.findAllWithDetailsOrderByCreatedDateDesc().stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return postCardAssembler.assemble(postRepository.findAllIdsOrderByCreatedDateDesc());
     }
 
     public PostDTO getPostById(Long id) {
-        Post post = postRepository.findByIdWithDetails(id)
+        return postCardAssembler.assembleOne(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
-        return convertToDTO(post);
     }
 
     public PostDTO createPost(CreatePostRequest request, Integer userId) {
+        // Start moderation first so the AI round-trip overlaps the user/type/location lookups below
+        CompletableFuture<ProfanityDetectionService.ProfanityResult> moderation =
+                profanityDetectionService.checkProfanityAsync(request.getContent());
+
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         
@@ -82,7 +169,7 @@ public class PostService {
                 .orElseThrow(() -> new RuntimeException("Location not found"));        // Check for profanity in post content
         try {
             ProfanityDetectionService.ProfanityResult profanityResult = 
-                profanityDetectionService.checkProfanity(request.getContent());
+                profanityDetectionService.join(moderation);
             
             if (profanityResult.isProfane()) {
                 // Create a profanity-specific exception that can be caught by the controller
@@ -110,36 +197,43 @@ public class PostService {
             throw new RuntimeException("Hệ thống kiểm tra nội dung tạm thời không khả dụng. Vui lòng thử lại sau.");
         }
 
-        Post post = new Post();
-        post.setContent(request.getContent());
-        post.setUser(user);
-        post.setType(postType);
-        post.setLocation(location);
-        post.setCreatedDate(ZonedDateTime.now(ZoneOffset.UTC));
-        post.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
-
-        Post savedPost = postRepository.save(post);
-
-        // Save media if provided
-        if (request.getMediaUrls() != null && !request.getMediaUrls().isEmpty()) {
-            for (String mediaUrl : request.getMediaUrls()) {
-                PostMedia media = new PostMedia();
-                media.setPost(savedPost);
-                media.setMediaUrl(mediaUrl);
-                media.setMediaType(determineMediaType(mediaUrl));
-                media.setUploadedAt(ZonedDateTime.now(ZoneOffset.UTC));
-                postMediaRepository.save(media);
+        // The post, its media and its outbox events commit together - moderation above runs outside the transaction
+        Post savedPost = transactionTemplate.execute(status -> {
+            Post post = new Post();
+            post.setContent(request.getContent());
+            post.setUser(user);
+            post.setType(postType);
+            post.setLocation(location);
+            post.setCreatedDate(ZonedDateTime.now(ZoneOffset.UTC));
+            post.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
+
+            Post saved = postRepository.save(post);
+            postStatsService.initializeStats(saved.getId());
+
+            // Save media if provided
+            if (request.getMediaUrls() != null && !request.getMediaUrls().isEmpty()) {
+                for (String mediaUrl : request.getMediaUrls()) {
+                    PostMedia media = new PostMedia();
+                    media.setPost(saved);
+                    media.setMediaUrl(mediaUrl);
+                    media.setMediaType(determineMediaType(mediaUrl));
+                    media.setUploadedAt(ZonedDateTime.now(ZoneOffset.UTC));
+                    postMediaRepository.save(media);
+                }
             }
-        }        // Create async notifications for friends when a new post is created
-        // This is crucial for social media performance - don't block post creation
-        try {
-            notificationService.createFriendPostNotificationAsync(userId, savedPost.getId());
-        } catch (Exception e) {
-            // Log the error but don't fail the post creation
-            System.err.println("Failed to create async friend post notifications: " + e.getMessage());
-        }
 
-        return convertToDTO(savedPost);
+            // Timeline fan-out and friend/follower notifications are delivered by the outbox dispatcher
+            outboxService.enqueue(OutboxService.TIMELINE_FAN_OUT, Map.of(
+                    "authorId", userId,
+                    "postId", saved.getId(),
+                    "createdDate", saved.getCreatedDate().toInstant().toString()));
+            outboxService.enqueue(OutboxService.FRIEND_POST_NOTIFICATION, Map.of(
+                    "postAuthorId", userId,
+                    "postId", saved.getId()));
+            return saved;
+        });
+
+        return getPostById(savedPost.getId());
     }    public PostDTO updatePost(Long id, CreatePostRequest request, Integer userId) {
         Post post = postRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Post not found"));
@@ -161,7 +255,7 @@ public class PostService {
         post.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
 
         Post updatedPost = postRepository.save(post);
-        return convertToDTO(updatedPost);
+        return getPostById(updatedPost.getId());
     }
 
     // Keep the old method for backward compatibility (admin use)
@@ -181,7 +275,7 @@ public class PostService {
         post.setUpdatedAt(ZonedDateTime.now(ZoneOffset.UTC));
 
         Post updatedPost = postRepository.save(post);
-        return convertToDTO(updatedPost);
+        return getPostById(updatedPost.getId());
     }
 
     @Transactional
@@ -240,6 +334,11 @@ public class PostService {
             List<Notification> notifications = notificationRepository.findByPostId(postId);
             if (!notifications.isEmpty()) {
                 notificationRepository.deleteAll(notifications);
+                // Unread ones leave the recipients' badges, one adjustment per recipient
+                notifications.stream()
+                    .filter(notification -> !Boolean.TRUE.equals(notification.getReadStatus()))
+                    .collect(Collectors.groupingBy(notification -> notification.getRecipientUser().getId(), Collectors.counting()))
+                    .forEach((recipientId, unread) -> notificationCounterService.adjustUnread(recipientId, -unread));
             }
             
             // 7. Delete all reports for this post
@@ -248,7 +347,11 @@ public class PostService {
             // 8. Delete all post media
             postMediaRepository.deleteByPostId(postId);
             
-            // 9. Finally, delete the post itself
+            // 9. Delete the engagement counters and timeline entries
+            postStatsService.deleteStats(postId);
+            timelineService.removePost(postId);
+            
+            // 10. Finally, delete the post itself
             postRepository.deleteById(postId);
             
             System.out.println("Successfully deleted post " + postId + " with all related data");
@@ -260,73 +363,34 @@ public class PostService {
     }
 
     public List<PostDTO> getPostsByUserId(Integer userId) {
-        return postRepository.findByUserIdOrderByCreatedDateDesc(userId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return postCardAssembler.assemble(postRepository.findIdsByUserIdOrderByCreatedDateDesc(userId));
     }
 
     public List<PostDTO> getPostsByLocationId(Integer locationId) {
-        return postRepository.findByLocationIdOrderByCreatedDateDesc(locationId).stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return postCardAssembler.assemble(postRepository.findIdsByLocationIdOrderByCreatedDateDesc(locationId));
     }
 
-    private PostDTO convertToDTO(Post post) {
-        PostDTO dto = new PostDTO();
-        dto.setId(post.getId());
-        dto.setContent(post.getContent());
-        dto.setCreatedDate(post.getCreatedDate());
-        dto.setUpdatedAt(post.getUpdatedAt());
-        
-        // Convert author
-        UserDTO authorDTO = new UserDTO();
-        authorDTO.setId(post.getUser().getId());
-        authorDTO.setUsername(post.getUser().getUsername());
-        if (post.getUser().getUserData() != null) {
-            authorDTO.setDisplayName(post.getUser().getUserData().getDisplayName());
-            authorDTO.setBio(post.getUser().getUserData().getBio());
-            authorDTO.setProfilePicture(post.getUser().getUserData().getProfilePicture());
-        }
-        dto.setAuthor(authorDTO);
-
-        // Convert post type
-        PostTypeDTO typeDTO = new PostTypeDTO();
-        typeDTO.setId(post.getType().getId());
-        typeDTO.setTypeName(post.getType().getTypeName());
-        dto.setType(typeDTO);
-
-        // Convert location if present
-        if (post.getLocation() != null) {
-            LocationDTO locationDTO = new LocationDTO();
-            locationDTO.setId(post.getLocation().getId());
-            locationDTO.setLocation(post.getLocation().getLocation());
-            dto.setLocation(locationDTO);
-        }
+    /**
+     * Position in the feed ordering, serialized as a URL-safe base64 token so clients treat it as opaque
+     */
+    private record FeedCursor(ZonedDateTime createdDate, Long id) {
 
-        // Convert media
-        if (post.getMedia() != null) {
-            List<PostMediaDTO> mediaList = post.getMedia().stream()
-                    .map(this::convertMediaToDTO)
-                    .collect(Collectors.toList());
-            dto.setMedia(mediaList);
+        String encode() {
+            String raw = createdDate.toInstant().toString() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
         }
 
-        // Set counts
-        dto.setCommentsCount(post.getComments() != null ? post.getComments().size() : 0);
-        dto.setLikesCount(post.getReactions() != null ? 
-                (int) post.getReactions().stream().filter(r -> "LIKE".equals(r.getReactionType().getName())).count() : 0);
-
-        return dto;
-    }
-
-    private PostMediaDTO convertMediaToDTO(PostMedia media) {
-        PostMediaDTO dto = new PostMediaDTO();
-        dto.setId(media.getId());
-        dto.setPostId(media.getPost().getId());
-        dto.setMediaUrl(media.getMediaUrl());
-        dto.setMediaType(media.getMediaType().toString());
-        dto.setUploadedAt(media.getUploadedAt());
-        return dto;
+        static FeedCursor decode(String token) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                Instant createdAt = Instant.parse(raw.substring(0, separator));
+                Long id = Long.parseLong(raw.substring(separator + 1));
+                return new FeedCursor(createdAt.atZone(ZoneOffset.UTC), id);
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid feed cursor");
+            }
+        }
     }
 
     private com.example.server.model.Enum.MediaType determineMediaType(String url) {
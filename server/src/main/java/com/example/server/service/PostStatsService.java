@@ -0,0 +1,162 @@
+package com.example.server.service;
+
+import com.example.server.model.Entity.PostStats;
+import com.example.server.repository.*;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the per-post engagement counters in post_stats.
+ * Adjustments join the caller's transaction so a counter only moves if the underlying row change commits.
+ * Posts created before the table existed are counted from the source tables when read, and get their
+ * row rebuilt on the first counter change; reads never write.
+ */
+@Service
+public class PostStatsService {
+
+    public static final long LIKE_REACTION_TYPE_ID = 1L;
+    public static final long DISLIKE_REACTION_TYPE_ID = 2L;
+
+    private final PostStatsRepository postStatsRepository;
+    private final CommentRepository commentRepository;
+    private final PostReactionRepository postReactionRepository;
+    private final BookmarkRepository bookmarkRepository;
+    private final PostViewRepository postViewRepository;
+
+    public PostStatsService(PostStatsRepository postStatsRepository, CommentRepository commentRepository,
+                            PostReactionRepository postReactionRepository, BookmarkRepository bookmarkRepository,
+                            PostViewRepository postViewRepository) {
+        this.postStatsRepository = postStatsRepository;
+        this.commentRepository = commentRepository;
+        this.postReactionRepository = postReactionRepository;
+        this.bookmarkRepository = bookmarkRepository;
+        this.postViewRepository = postViewRepository;
+    }
+
+    @Transactional
+    public void initializeStats(Long postId) {
+        postStatsRepository.insertIfAbsent(postId, now());
+    }
+
+    @Transactional
+    public void adjustComments(Long postId, long delta) {
+        if (postStatsRepository.incrementComments(postId, delta, now()) == 0) {
+            rebuildStats(postId);
+        }
+    }
+
+    @Transactional
+    public void adjustReaction(Long postId, Long reactionTypeId, long delta) {
+        changeReaction(postId, null, reactionTypeId, delta);
+    }
+
+    /**
+     * Move one reaction from one type to another (e.g. like -> dislike)
+     */
+    @Transactional
+    public void changeReaction(Long postId, Long fromReactionTypeId, Long toReactionTypeId) {
+        changeReaction(postId, fromReactionTypeId, toReactionTypeId, 1);
+    }
+
+    @Transactional
+    public void adjustBookmarks(Long postId, long delta) {
+        if (postStatsRepository.incrementBookmarks(postId, delta, now()) == 0) {
+            rebuildStats(postId);
+        }
+    }
+
+    @Transactional
+    public void recordView(Long postId) {
+        if (postStatsRepository.incrementViews(postId, 1, now()) == 0) {
+            rebuildStats(postId);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public PostStats getStats(Long postId) {
+        return postStatsRepository.findById(postId)
+                .orElseGet(() -> countStats(postId));
+    }
+
+    /**
+     * Load the counters for a page of posts in one query
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, PostStats> getStatsForPosts(Collection<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<Long, PostStats> stats = postStatsRepository.findAllById(postIds).stream()
+                .collect(Collectors.toMap(PostStats::getPostId, Function.identity()));
+        for (Long postId : postIds) {
+            if (!stats.containsKey(postId)) {
+                stats.put(postId, countStats(postId));
+            }
+        }
+        return stats;
+    }
+
+    @Transactional
+    public void deleteStats(Long postId) {
+        if (postStatsRepository.existsById(postId)) {
+            postStatsRepository.deleteById(postId);
+        }
+    }
+
+    /**
+     * Recount every counter from the source tables and store the result
+     */
+    @Transactional
+    public PostStats rebuildStats(Long postId) {
+        PostStats stats = countStats(postId);
+        postStatsRepository.upsert(stats);
+        return stats;
+    }
+
+    // Counters straight from the source tables, without storing them
+    private PostStats countStats(Long postId) {
+        PostStats stats = new PostStats(postId);
+        stats.setCommentsCount(commentRepository.countByPostId(postId));
+        stats.setLikesCount(postReactionRepository.countByPostIdAndReactionTypeId(postId, LIKE_REACTION_TYPE_ID));
+        stats.setDislikesCount(postReactionRepository.countByPostIdAndReactionTypeId(postId, DISLIKE_REACTION_TYPE_ID));
+        stats.setBookmarksCount(bookmarkRepository.countByPostId(postId));
+        stats.setViewsCount(postViewRepository.countByPostId(postId));
+        stats.setUpdatedAt(now());
+        return stats;
+    }
+
+    private void changeReaction(Long postId, Long fromReactionTypeId, Long toReactionTypeId, long delta) {
+        long likesDelta = 0;
+        long dislikesDelta = 0;
+        if (fromReactionTypeId != null) {
+            likesDelta -= isType(fromReactionTypeId, LIKE_REACTION_TYPE_ID) ? delta : 0;
+            dislikesDelta -= isType(fromReactionTypeId, DISLIKE_REACTION_TYPE_ID) ? delta : 0;
+        }
+        if (toReactionTypeId != null) {
+            likesDelta += isType(toReactionTypeId, LIKE_REACTION_TYPE_ID) ? delta : 0;
+            dislikesDelta += isType(toReactionTypeId, DISLIKE_REACTION_TYPE_ID) ? delta : 0;
+        }
+        if (likesDelta == 0 && dislikesDelta == 0) {
+            return;
+        }
+        if (postStatsRepository.incrementReactions(postId, likesDelta, dislikesDelta, now()) == 0) {
+            rebuildStats(postId);
+        }
+    }
+
+    private boolean isType(Long reactionTypeId, long expected) {
+        return reactionTypeId != null && reactionTypeId == expected;
+    }
+
+    private ZonedDateTime now() {
+        return ZonedDateTime.now(ZoneOffset.UTC);
+    }
+}
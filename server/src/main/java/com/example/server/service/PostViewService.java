@@ -26,14 +26,17 @@ public class PostViewService {
     private final PostViewRepository postViewRepository;
     private final PostRepository postRepository;
     private final UserRepository userRepository;
+    private final PostStatsService postStatsService;
 
     @Autowired
     public PostViewService(PostViewRepository postViewRepository, 
                           PostRepository postRepository,
-                          UserRepository userRepository) {
+                          UserRepository userRepository,
+                          PostStatsService postStatsService) {
         this.postViewRepository = postViewRepository;
         this.postRepository = postRepository;
         this.userRepository = userRepository;
+        this.postStatsService = postStatsService;
     }
 
     @Transactional
@@ -58,6 +61,7 @@ public class PostViewService {
         postView.setViewedAt(LocalDateTime.now());
 
         PostView savedView = postViewRepository.save(postView);
+        postStatsService.recordView(postId);
         return convertToDTO(savedView);
     }
 
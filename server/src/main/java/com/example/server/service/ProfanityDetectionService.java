@@ -6,17 +6,35 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.client.ResourceAccessException;
-import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @Service
 public class ProfanityDetectionService {
@@ -31,20 +49,103 @@ public class ProfanityDetectionService {
       @Value("${profanity.detection.timeout:120000}")
     private int timeoutMs;
     
+    @Value("${profanity.health.timeout-ms:2000}")
+    private int healthTimeoutMs;
+    
+    @Value("${profanity.http.max-total:50}")
+    private int httpMaxTotal;
+    
+    @Value("${profanity.http.max-per-route:20}")
+    private int httpMaxPerRoute;
+    
+    @Value("${profanity.batch.enabled:true}")
+    private boolean batchingEnabled;
+    
+    @Value("${profanity.batch.max-size:16}")
+    private int batchMaxSize;
+    
+    @Value("${profanity.batch.window-ms:5}")
+    private long batchWindowMs;
+    
+    @Value("${profanity.batch.queue-capacity:1000}")
+    private int batchQueueCapacity;
+    
+    private static final String STARTING_MESSAGE = "Hệ thống kiểm tra nội dung đang khởi động. Vui lòng thử lại sau 2-3 phút.";
+    
+    // Pooled keep-alive connections to the AI server, shared by both RestTemplates
+    private CloseableHttpClient httpClient;
     private RestTemplate restTemplate;
+    // Short-timeout client for /health and /model_info so a dead server never stalls the prober
+    private RestTemplate healthRestTemplate;
+    
+    // Last result of the background health probe - read on every request instead of a /health round-trip
+    private volatile boolean serverReady;
+    private volatile long lastProbeAt;
+    private final ModerationCircuitBreaker circuitBreaker;
+    private final ProfanityLexiconFilter lexiconFilter;
+    // Runs single-item /detect calls for checkProfanityAsync when batching is disabled
+    private final TaskExecutor taskExecutor;
+    // Null when batching is disabled - checks then go through single-item /detect
+    private ModerationBatchDispatcher batchDispatcher;
     
-    public ProfanityDetectionService() {
+    // Verdict cache keyed by normalized text + model fingerprint
+    private static final long MODEL_FINGERPRINT_REFRESH_MS = 5 * 60 * 1000;
+    private final ModerationVerdictCache verdictCache;
+    private volatile String modelFingerprint;
+    private volatile long modelFingerprintCheckedAt;
+    
+    public ProfanityDetectionService(ModerationVerdictCache verdictCache, ModerationCircuitBreaker circuitBreaker,
+                                     ProfanityLexiconFilter lexiconFilter,
+                                     @Qualifier("taskExecutor") TaskExecutor taskExecutor) {
         // RestTemplate will be configured in @PostConstruct after @Value injection
+        this.verdictCache = verdictCache;
+        this.circuitBreaker = circuitBreaker;
+        this.lexiconFilter = lexiconFilter;
+        this.taskExecutor = taskExecutor;
     }
     
     @PostConstruct
     public void init() {
         // Configure RestTemplate with timeout after @Value injection
-        SimpleClientHttpRequestFactory factory = new SimpleClientHttpRequestFactory();
-        factory.setConnectTimeout(timeoutMs);
-        factory.setReadTimeout(timeoutMs);
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(httpMaxTotal);
+        connectionManager.setDefaultMaxPerRoute(httpMaxPerRoute);
+        connectionManager.setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.ofMilliseconds(healthTimeoutMs))
+            .setValidateAfterInactivity(TimeValue.ofSeconds(10))
+            .build());
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(connectionManager)
+            .evictIdleConnections(TimeValue.ofMinutes(1))
+            .build();
+        
+        HttpComponentsClientHttpRequestFactory factory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        factory.setConnectionRequestTimeout(Duration.ofMillis(timeoutMs));
+        factory.setReadTimeout(Duration.ofMillis(timeoutMs));
         this.restTemplate = new RestTemplate(factory);
-        logger.info("ProfanityDetectionService initialized with timeout: {}ms", timeoutMs);
+        
+        HttpComponentsClientHttpRequestFactory healthFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        healthFactory.setConnectionRequestTimeout(Duration.ofMillis(healthTimeoutMs));
+        healthFactory.setReadTimeout(Duration.ofMillis(healthTimeoutMs));
+        this.healthRestTemplate = new RestTemplate(healthFactory);
+        
+        if (batchingEnabled) {
+            batchDispatcher = new ModerationBatchDispatcher(this::sendDispatchedBatch, batchMaxSize, batchWindowMs, batchQueueCapacity);
+            batchDispatcher.start();
+        }
+        logger.info("ProfanityDetectionService initialized with timeout: {}ms, batching: {}", timeoutMs, batchingEnabled);
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        if (batchDispatcher != null) {
+            batchDispatcher.shutdown();
+        }
+        try {
+            httpClient.close();
+        } catch (Exception e) {
+            logger.warn("Error closing AI server HTTP client: {}", e.getMessage());
+        }
     }
       /**
      * Check if text contains profanity
@@ -52,59 +153,90 @@ public class ProfanityDetectionService {
      * @return ProfanityResult containing detection results
      */
     public ProfanityResult checkProfanity(String text) {
+        return join(checkProfanityAsync(text));
+    }
+    
+    /**
+     * Wait for a checkProfanityAsync result, rethrowing its user-facing RuntimeException unwrapped
+     */
+    public ProfanityResult join(CompletableFuture<ProfanityResult> moderation) {
+        try {
+            return moderation.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw unavailable(e.getCause());
+        }
+    }
+    
+    /**
+     * Non-blocking variant of checkProfanity so callers can overlap moderation with their own lookups.
+     * The future fails with the same user-facing RuntimeException messages as checkProfanity.
+     */
+    public CompletableFuture<ProfanityResult> checkProfanityAsync(String text) {
         if (!profanityDetectionEnabled) {
-            throw new RuntimeException("Profanity detection is disabled in configuration");
+            return CompletableFuture.failedFuture(new RuntimeException("Profanity detection is disabled in configuration"));
         }
         
         if (text == null || text.trim().isEmpty()) {
-            return createCleanResult(text);
+            return CompletableFuture.completedFuture(createCleanResult(text));
         }
-          try {
-            // Check if AI server is available first - REQUIRED
-            if (!isServerHealthy()) {
-                throw new RuntimeException("Hệ thống kiểm tra nội dung đang khởi động. Vui lòng thử lại sau 2-3 phút.");
-            }
-            
-            // Prepare request
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("text", text);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            // Make API call
-            ResponseEntity<ProfanityApiResponse> response = restTemplate.postForEntity(
-                profanityServerUrl + "/detect",
-                request,
-                ProfanityApiResponse.class
-            );            
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                ProfanityApiResponse apiResponse = response.getBody();
-                
-                // Handle potential null API response
-                if (apiResponse == null) {
-                    throw new RuntimeException("Received null response from AI server");
-                }
-                
-                return ProfanityResult.builder()
-                    .profane(apiResponse.isProfane)
-                    .confidence(apiResponse.confidence)
-                    .originalText(text)
-                    .processedText(apiResponse.processedText != null ? apiResponse.processedText : text)
-                    .toxicSpans(apiResponse.toxicSpans)
-                    .timestamp(LocalDateTime.now())
-                    .error(apiResponse.error)
-                    .build();
-            } else {
-                throw new RuntimeException("Invalid response from AI server: " + response.getStatusCode());
+        
+        // Obvious slurs are answered locally - works even while the AI server is down
+        ProfanityResult lexiconHit = lexiconFilter.match(text);
+        if (lexiconHit != null) {
+            return CompletableFuture.completedFuture(lexiconHit);
+        }
+        
+        // Repeated content (reposts, copy-pasted comments, short replies) skips the model round-trip
+        String fingerprint = modelFingerprint;
+        if (fingerprint != null) {
+            ProfanityResult cached = verdictCache.get(text, fingerprint);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached.copyFor(text));
             }
-              } catch (ResourceAccessException e) {
-            throw new RuntimeException("Hệ thống kiểm tra nội dung đang khởi động. Vui lòng thử lại sau 2-3 phút.");
-        } catch (Exception e) {
-            throw new RuntimeException("Hệ thống kiểm tra nội dung tạm thời không khả dụng. Vui lòng thử lại sau.");
         }
+        
+        // AI server is REQUIRED - fail fast while it is down/loading or the breaker is open
+        if (!serverReady || !circuitBreaker.tryAcquire()) {
+            return CompletableFuture.failedFuture(new RuntimeException(STARTING_MESSAGE));
+        }
+        
+        // Concurrent checks share one /batch_detect call instead of one /detect each.
+        // Batched calls are recorded on the breaker once per HTTP batch by sendDispatchedBatch.
+        boolean batched = batchDispatcher != null;
+        CompletableFuture<ProfanityResult> pending = batched
+            ? batchDispatcher.submit(text)
+            : CompletableFuture.supplyAsync(() -> detectSingle(text), taskExecutor);
+        
+        return pending
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .handle((result, error) -> {
+                if (error != null) {
+                    if (batched) {
+                        // Queue full or timed out waiting here: not an AI server outcome
+                        circuitBreaker.releaseTrial();
+                    } else {
+                        circuitBreaker.recordFailure();
+                    }
+                    throw unavailable(error instanceof CompletionException ? error.getCause() : error);
+                }
+                if (result.hasError()) {
+                    if (!batched) {
+                        circuitBreaker.recordFailure(); // "Model still loading" answer
+                    }
+                } else {
+                    if (!batched) {
+                        circuitBreaker.recordSuccess();
+                    }
+                    // Only real verdicts are cached - "model still loading" answers must be retried
+                    if (fingerprint != null) {
+                        verdictCache.put(text, fingerprint, result);
+                    }
+                }
+                return result;
+            });
     }
       /**
      * Check multiple texts for profanity in batch
@@ -120,57 +252,158 @@ public class ProfanityDetectionService {
             return List.of();
         }
         
+        if (!serverReady || !circuitBreaker.tryAcquire()) {
+            throw new RuntimeException("AI server is not available - content moderation required");
+        }
+        
         try {
-            if (!isServerHealthy()) {
-                throw new RuntimeException("AI server is not available - content moderation required");
-            }
-            
-            Map<String, Object> requestBody = new HashMap<>();
-            requestBody.put("texts", texts);
-            
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            
-            HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
-            
-            ResponseEntity<BatchProfanityApiResponse> response = restTemplate.postForEntity(
-                profanityServerUrl + "/batch_detect",
-                request,
-                BatchProfanityApiResponse.class
-            );
-              if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                BatchProfanityApiResponse apiResponse = response.getBody();
-                
-                // Handle potential null API response
-                if (apiResponse == null || apiResponse.results == null) {
-                    throw new RuntimeException("Received null or incomplete response from AI server");
-                }
-                
-                return apiResponse.results.stream()
-                    .map(result -> ProfanityResult.builder()
-                        .profane(result.isProfane)
-                        .confidence(result.confidence)
-                        .originalText(texts.get(result.index))
-                        .processedText(result.processedText != null ? result.processedText : texts.get(result.index))
-                        .toxicSpans(result.toxicSpans)
-                        .timestamp(LocalDateTime.now())
-                        .error(result.error)
-                        .build())
-                    .toList();
-            } else {
-                throw new RuntimeException("Invalid response from AI server: " + response.getStatusCode());
+            // The AI server caps the number of texts per request
+            List<ProfanityResult> results = new ArrayList<>(texts.size());
+            for (int from = 0; from < texts.size(); from += batchMaxSize) {
+                results.addAll(sendBatch(texts.subList(from, Math.min(from + batchMaxSize, texts.size()))));
             }
-            
+            circuitBreaker.recordSuccess();
+            return results;
         } catch (Exception e) {
+            circuitBreaker.recordFailure();
             throw new RuntimeException("Error during batch profanity detection: " + e.getMessage());
         }
+    }
+    
+    private ProfanityResult detectSingle(String text) {
+        // Prepare request
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("text", text);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        
+        // Make API call
+        ResponseEntity<ProfanityApiResponse> response = restTemplate.postForEntity(
+            profanityServerUrl + "/detect",
+            request,
+            ProfanityApiResponse.class
+        );
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new RuntimeException("Invalid response from AI server: " + response.getStatusCode());
+        }
+        ProfanityApiResponse apiResponse = response.getBody();
+        
+        return ProfanityResult.builder()
+            .profane(apiResponse.isProfane)
+            .confidence(apiResponse.confidence)
+            .originalText(text)
+            .processedText(apiResponse.processedText != null ? apiResponse.processedText : text)
+            .toxicSpans(apiResponse.toxicSpans)
+            .timestamp(LocalDateTime.now())
+            .error(apiResponse.error)
+            .build();
+    }
+    
+    /**
+     * A dispatcher batch: one breaker outcome per /batch_detect call, however many callers are waiting on it
+     */
+    private List<ProfanityResult> sendDispatchedBatch(List<String> texts) {
+        try {
+            List<ProfanityResult> results = sendBatch(texts);
+            if (results.stream().anyMatch(ProfanityResult::hasError)) {
+                circuitBreaker.recordFailure(); // "Model still loading" answers
+            } else {
+                circuitBreaker.recordSuccess();
+            }
+            return results;
+        } catch (RuntimeException e) {
+            circuitBreaker.recordFailure();
+            throw e;
+        }
+    }
+
+    /**
+     * One /batch_detect round-trip. Results are returned in the same order as the texts.
+     */
+    private List<ProfanityResult> sendBatch(List<String> texts) {
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("texts", texts);
+        
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        
+        HttpEntity<Map<String, Object>> request = new HttpEntity<>(requestBody, headers);
+        
+        ResponseEntity<BatchProfanityApiResponse> response = restTemplate.postForEntity(
+            profanityServerUrl + "/batch_detect",
+            request,
+            BatchProfanityApiResponse.class
+        );
+        if (!response.getStatusCode().is2xxSuccessful() || response.getBody() == null) {
+            throw new RuntimeException("Invalid response from AI server: " + response.getStatusCode());
+        }
+        BatchProfanityApiResponse apiResponse = response.getBody();
+        if (apiResponse.results == null || apiResponse.results.size() != texts.size()) {
+            throw new RuntimeException("Received null or incomplete response from AI server");
+        }
+        
+        ProfanityResult[] results = new ProfanityResult[texts.size()];
+        for (BatchProfanityApiResponse.BatchResultItem item : apiResponse.results) {
+            String text = texts.get(item.index);
+            results[item.index] = ProfanityResult.builder()
+                .profane(item.isProfane)
+                .confidence(item.confidence)
+                .originalText(text)
+                .processedText(item.processedText != null ? item.processedText : text)
+                .toxicSpans(item.toxicSpans)
+                .timestamp(LocalDateTime.now())
+                .error(item.error)
+                .build();
+        }
+        return Arrays.asList(results);
+    }
+    
+    private RuntimeException unavailable(Throwable cause) {
+        if (cause instanceof ResourceAccessException || cause instanceof TimeoutException) {
+            return new RuntimeException(STARTING_MESSAGE);
+        }
+        return new RuntimeException("Hệ thống kiểm tra nội dung tạm thời không khả dụng. Vui lòng thử lại sau.");
     }    /**
-     * Check if the AI server is healthy and ready to process requests
+     * Check if the AI server is healthy and ready to process requests.
+     * Answers from the last background probe, so it never blocks on the network.
      * @return true if server is healthy, false otherwise
-     */    @SuppressWarnings("unchecked")
+     */
     public boolean isServerHealthy() {
+        return serverReady;
+    }
+    
+    /**
+     * Background health probe - keeps serverReady and the model fingerprint current
+     * and feeds the circuit breaker so it can recover without waiting out its open window.
+     */
+    @Scheduled(fixedDelayString = "${profanity.health.probe-interval-ms:5000}")
+    public void refreshServerHealth() {
+        if (!profanityDetectionEnabled) {
+            return;
+        }
+        boolean ready = probeHealth();
+        lastProbeAt = System.currentTimeMillis();
+        if (ready != serverReady) {
+            logger.info("AI Server is now {}", ready ? "ready" : "unavailable");
+        }
+        serverReady = ready;
+        
+        if (ready) {
+            circuitBreaker.probeSucceeded();
+            refreshModelFingerprint();
+        } else {
+            circuitBreaker.forceOpen();
+            modelFingerprintCheckedAt = 0; // Re-check the model as soon as the server is back
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private boolean probeHealth() {
         try {
-            ResponseEntity<Map<String, Object>> response = restTemplate.getForEntity(
+            ResponseEntity<Map<String, Object>> response = healthRestTemplate.getForEntity(
                 profanityServerUrl + "/health",
                 (Class<Map<String, Object>>) (Class<?>) Map.class
             );
@@ -211,7 +444,7 @@ public class ProfanityDetectionService {
      */
     public ModelInfo getModelInfo() {
         try {
-            ResponseEntity<ModelInfo> response = restTemplate.getForEntity(
+            ResponseEntity<ModelInfo> response = healthRestTemplate.getForEntity(
                 profanityServerUrl + "/model_info",
                 ModelInfo.class
             );
@@ -225,6 +458,51 @@ public class ProfanityDetectionService {
         
         return null;
     }
+    /**
+     * Identity of the deployed model, used to namespace cached verdicts.
+     * Refreshed from /model_info by the health prober at most every few minutes; null while the model is not loaded.
+     */
+    private void refreshModelFingerprint() {
+        long now = System.currentTimeMillis();
+        if (now - modelFingerprintCheckedAt > MODEL_FINGERPRINT_REFRESH_MS) {
+            modelFingerprintCheckedAt = now;
+            ModelInfo info = getModelInfo();
+            if (info != null && info.modelLoaded) {
+                String fingerprint = info.fingerprint();
+                if (modelFingerprint != null && !modelFingerprint.equals(fingerprint)) {
+                    logger.info("AI model changed ({} -> {}), dropping cached verdicts", modelFingerprint, fingerprint);
+                    verdictCache.clear();
+                }
+                modelFingerprint = fingerprint;
+            } else if (info != null) {
+                modelFingerprint = null; // Model reloading - don't trust cached verdicts yet
+            }
+        }
+    }
+    
+    /**
+     * Moderation client statistics for the admin dashboard
+     */
+    public Map<String, Object> getModerationStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("verdictCache", verdictCache.getStats());
+        stats.put("lexicon", lexiconFilter.getStats());
+        stats.put("modelFingerprint", modelFingerprint);
+        stats.put("serverReady", serverReady);
+        stats.put("lastProbeAt", lastProbeAt);
+        stats.put("circuitBreaker", circuitBreaker.getStats());
+        if (batchDispatcher != null) {
+            Map<String, Object> batching = new HashMap<>();
+            batching.put("batchesSent", batchDispatcher.getBatchesSent());
+            batching.put("textsSent", batchDispatcher.getTextsSent());
+            batching.put("queueSize", batchDispatcher.getQueueSize());
+            batching.put("maxBatchSize", batchMaxSize);
+            batching.put("windowMs", batchWindowMs);
+            stats.put("batching", batching);
+        }
+        return stats;
+    }
+    
       private ProfanityResult createCleanResult(String text) {
         return ProfanityResult.builder()
             .profane(false)
@@ -292,6 +570,16 @@ public class ProfanityDetectionService {
         public boolean modelLoaded;
         
         public String device;
+        
+        @JsonProperty("model_type")
+        public String modelType;
+        
+        @JsonProperty("base_model")
+        public String baseModel;
+        
+        public String fingerprint() {
+            return modelName + "|" + modelType + "|" + baseModel + "|" + maxLength + "|" + confidenceThreshold;
+        }
     }
     
     // Result class
@@ -361,6 +649,22 @@ public class ProfanityDetectionService {
         public String getError() { return error; }
         
         public boolean hasError() { return error != null && !error.isEmpty(); }
+        
+        // Same verdict for another submission of the same content. Spans are character offsets into the
+        // text the model saw, so they only carry over to an identical text - not one that differs in
+        // surrounding whitespace or Unicode composition but shares the normalized cache key
+        public ProfanityResult copyFor(String text) {
+            boolean sameText = Objects.equals(originalText, text);
+            return builder()
+                .profane(profane)
+                .confidence(confidence)
+                .originalText(text)
+                .processedText(sameText ? processedText : text)
+                .toxicSpans(sameText ? toxicSpans : null)
+                .timestamp(LocalDateTime.now())
+                .error(error)
+                .build();
+        }
     }
     
     /**
@@ -0,0 +1,341 @@
+package com.example.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process Vietnamese lexicon pre-filter that runs before the AI model.
+ * Text that contains a listed term is answered locally with its toxic spans; everything else is
+ * still escalated to the model, since a word list can flag obvious slurs but cannot prove text clean.
+ *
+ * Lexicon lines written without diacritics (teencode/abbreviations such as "dm", "vcl") are matched
+ * against diacritic-folded text. Lines written with diacritics ("lồn", "địt") are matched exactly,
+ * because their folded forms collide with everyday words ("lớn", "đít").
+ * Unaccented multi-word lines are skipped: once diacritics are stripped, phrases like "du me" also match
+ * ordinary sentences ("Dù mẹ có nói gì"), and a lexicon hit is a final verdict with no model escalation.
+ * The list is reloaded when the underlying resource changes.
+ */
+@Component
+public class ProfanityLexiconFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfanityLexiconFilter.class);
+
+    @Value("${profanity.lexicon.enabled:true}")
+    private boolean enabled;
+
+    @Value("${profanity.lexicon.location:classpath:profanity/vi-lexicon.txt}")
+    private String location;
+
+    private final ResourceLoader resourceLoader;
+
+    // Swapped atomically on reload
+    private volatile Lexicon lexicon = Lexicon.EMPTY;
+    private volatile long loadedModified = -1;
+    private volatile LocalDateTime loadedAt;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong checks = new AtomicLong();
+
+    public ProfanityLexiconFilter(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            reloadIfChanged();
+        }
+    }
+
+    /**
+     * Reload the word list when the resource's modification time changes - runs every minute by default
+     */
+    @Scheduled(fixedDelayString = "${profanity.lexicon.reload-interval-ms:60000}")
+    public void reloadIfChanged() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Resource resource = resourceLoader.getResource(location);
+            long modified = resource.lastModified();
+            if (modified == loadedModified) {
+                return;
+            }
+            lexicon = load(resource);
+            loadedModified = modified;
+            loadedAt = LocalDateTime.now();
+            logger.info("Loaded profanity lexicon from {} ({} folded, {} exact terms)",
+                location, lexicon.foldedTerms(), lexicon.exactTerms());
+        } catch (Exception e) {
+            // Keep serving the previous list
+            logger.warn("Could not load profanity lexicon from {}: {}", location, e.getMessage());
+        }
+    }
+
+    /**
+     * @return a profane result with toxic spans if the text contains a listed term, or null to escalate to the model
+     */
+    public ProfanityDetectionService.ProfanityResult match(String text) {
+        Lexicon current = lexicon;
+        if (!enabled || current.isEmpty() || text == null) {
+            return null;
+        }
+        checks.incrementAndGet();
+
+        NormalizedText normalized = NormalizedText.of(text);
+        List<int[]> spans = new ArrayList<>();
+        current.folded().findWords(normalized.folded(), normalized, spans);
+        current.exact().findWords(normalized.exact(), normalized, spans);
+        if (spans.isEmpty()) {
+            return null;
+        }
+        hits.incrementAndGet();
+
+        return ProfanityDetectionService.ProfanityResult.builder()
+            .profane(true)
+            .confidence(1.0)
+            .originalText(text)
+            .processedText(text)
+            .toxicSpans(mergeSpans(spans))
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+
+    public Map<String, Object> getStats() {
+        Lexicon current = lexicon;
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("location", location);
+        stats.put("foldedTerms", current.foldedTerms());
+        stats.put("exactTerms", current.exactTerms());
+        stats.put("loadedAt", loadedAt);
+        stats.put("checks", checks.get());
+        stats.put("hits", hits.get());
+        return stats;
+    }
+
+    private static Lexicon load(Resource resource) throws Exception {
+        AhoCorasick folded = new AhoCorasick();
+        AhoCorasick exact = new AhoCorasick();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                NormalizedText term = NormalizedText.of(line);
+                if (term.exact().isEmpty()) {
+                    continue;
+                }
+                if (term.exact().equals(term.folded())) {
+                    if (term.folded().indexOf(' ') >= 0) {
+                        logger.warn("Skipping unaccented multi-word lexicon term '{}': write it with diacritics", line);
+                        continue;
+                    }
+                    folded.add(term.folded());
+                } else {
+                    exact.add(term.exact());
+                }
+            }
+        }
+        folded.build();
+        exact.build();
+        return new Lexicon(folded, exact);
+    }
+
+    private static List<List<Integer>> mergeSpans(List<int[]> spans) {
+        spans.sort(Comparator.comparingInt(span -> span[0]));
+        List<List<Integer>> merged = new ArrayList<>();
+        int start = spans.get(0)[0];
+        int end = spans.get(0)[1];
+        for (int[] span : spans) {
+            if (span[0] <= end) {
+                end = Math.max(end, span[1]);
+            } else {
+                merged.add(List.of(start, end));
+                start = span[0];
+                end = span[1];
+            }
+        }
+        merged.add(List.of(start, end));
+        return merged;
+    }
+
+    private record Lexicon(AhoCorasick folded, AhoCorasick exact) {
+        static final Lexicon EMPTY = new Lexicon(new AhoCorasick().build(), new AhoCorasick().build());
+
+        boolean isEmpty() { return folded.size() == 0 && exact.size() == 0; }
+        int foldedTerms() { return folded.size(); }
+        int exactTerms() { return exact.size(); }
+    }
+
+    /**
+     * Lowercased NFC text with teencode digits/symbols mapped to letters and every run of
+     * non-alphanumeric characters collapsed to one space. The folded form also drops diacritics.
+     * Both forms have the same length, and offsets[i] is the position of char i in the original text.
+     */
+    private record NormalizedText(String exact, String folded, int[] offsets) {
+
+        static NormalizedText of(String text) {
+            String nfc = Normalizer.normalize(text, Normalizer.Form.NFC);
+            StringBuilder exact = new StringBuilder(nfc.length());
+            StringBuilder folded = new StringBuilder(nfc.length());
+            int[] offsets = new int[nfc.length()];
+            for (int i = 0; i < nfc.length(); i++) {
+                char c = teencode(Character.toLowerCase(nfc.charAt(i)));
+                if (!Character.isLetterOrDigit(c)) {
+                    // Separator: collapse runs and drop leading ones
+                    if (exact.length() > 0 && exact.charAt(exact.length() - 1) != ' ') {
+                        offsets[exact.length()] = i;
+                        exact.append(' ');
+                        folded.append(' ');
+                    }
+                    continue;
+                }
+                offsets[exact.length()] = i;
+                exact.append(c);
+                folded.append(fold(c));
+            }
+            int length = exact.length();
+            if (length > 0 && exact.charAt(length - 1) == ' ') {
+                length--;
+            }
+            return new NormalizedText(exact.substring(0, length), folded.substring(0, length), offsets);
+        }
+
+        // Map a [start, end) range of the normalized text back to the original text
+        int[] originalSpan(int start, int end) {
+            return new int[] { offsets[start], offsets[end - 1] + 1 };
+        }
+
+        private static char teencode(char c) {
+            switch (c) {
+                case '0': return 'o';
+                case '1': return 'i';
+                case '3': return 'e';
+                case '4': return 'a';
+                case '@': return 'a';
+                case '$': return 's';
+                default: return c;
+            }
+        }
+
+        private static char fold(char c) {
+            if (c < 0x80) {
+                return c;
+            }
+            if (c == 'đ') {
+                return 'd';
+            }
+            String decomposed = Normalizer.normalize(String.valueOf(c), Normalizer.Form.NFD);
+            return decomposed.charAt(0);
+        }
+    }
+
+    /**
+     * Aho-Corasick automaton over whole-word terms.
+     */
+    private static final class AhoCorasick {
+        private final List<Map<Character, Integer>> next = new ArrayList<>();
+        private final List<Integer> fail = new ArrayList<>();
+        // Lengths of the terms ending at each state (own and via fail links)
+        private final List<List<Integer>> outputs = new ArrayList<>();
+        private int size;
+
+        AhoCorasick() {
+            newState();
+        }
+
+        void add(String term) {
+            int state = 0;
+            for (int i = 0; i < term.length(); i++) {
+                Integer target = next.get(state).get(term.charAt(i));
+                if (target == null) {
+                    target = newState();
+                    next.get(state).put(term.charAt(i), target);
+                }
+                state = target;
+            }
+            if (!outputs.get(state).contains(term.length())) {
+                outputs.get(state).add(term.length());
+                size++;
+            }
+        }
+
+        AhoCorasick build() {
+            Deque<Integer> queue = new ArrayDeque<>();
+            for (int child : next.get(0).values()) {
+                fail.set(child, 0);
+                queue.add(child);
+            }
+            while (!queue.isEmpty()) {
+                int state = queue.poll();
+                for (Map.Entry<Character, Integer> edge : next.get(state).entrySet()) {
+                    int child = edge.getValue();
+                    int f = fail.get(state);
+                    while (f != 0 && !next.get(f).containsKey(edge.getKey())) {
+                        f = fail.get(f);
+                    }
+                    Integer target = next.get(f).get(edge.getKey());
+                    int childFail = target != null && target != child ? target : 0;
+                    fail.set(child, childFail);
+                    outputs.get(child).addAll(outputs.get(childFail));
+                    queue.add(child);
+                }
+            }
+            return this;
+        }
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Add the original-text spans of every term occurring in text as a whole word
+         */
+        void findWords(String text, NormalizedText normalized, List<int[]> spans) {
+            if (size == 0) {
+                return;
+            }
+            int state = 0;
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                while (state != 0 && !next.get(state).containsKey(c)) {
+                    state = fail.get(state);
+                }
+                state = next.get(state).getOrDefault(c, 0);
+                for (int length : outputs.get(state)) {
+                    int start = i - length + 1;
+                    int end = i + 1;
+                    boolean wordStart = start == 0 || text.charAt(start - 1) == ' ';
+                    boolean wordEnd = end == text.length() || text.charAt(end) == ' ';
+                    if (wordStart && wordEnd) {
+                        spans.add(normalized.originalSpan(start, end));
+                    }
+                }
+            }
+        }
+
+        private int newState() {
+            next.add(new HashMap<>());
+            fail.add(0);
+            outputs.add(new ArrayList<>());
+            return next.size() - 1;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.server.service;
+
+import com.example.server.handler.RealtimeBroker;
+import com.example.server.handler.RealtimeEnvelope;
+import com.example.server.repository.RoomUserRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Chat room id -> member user ids, loaded with one id-only query on first use.
+ * Room broadcasts read members from here instead of loading RoomUser rows and their users per message.
+ * Every membership change invalidates the room here and, through the realtime broker, on the other nodes,
+ * so no node keeps sending room frames to removed members; the TTL only backs up a lost invalidation.
+ */
+@Component
+public class RoomMembershipCache {
+
+    @Value("${chat.room-cache.max-size:10000}")
+    private long maxSize;
+
+    @Value("${chat.room-cache.ttl-minutes:10}")
+    private long ttlMinutes;
+
+    private final RoomUserRepository roomUserRepository;
+    private final RealtimeBroker realtimeBroker;
+    private LoadingCache<Long, Set<Integer>> members;
+
+    public RoomMembershipCache(RoomUserRepository roomUserRepository, RealtimeBroker realtimeBroker) {
+        this.roomUserRepository = roomUserRepository;
+        this.realtimeBroker = realtimeBroker;
+    }
+
+    @PostConstruct
+    public void init() {
+        this.members = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofMinutes(ttlMinutes))
+                .recordStats()
+                .build(roomId -> Set.copyOf(roomUserRepository.findUserIdsByChatRoomId(roomId)));
+        realtimeBroker.subscribe(this::onRemoteEnvelope);
+    }
+
+    public Set<Integer> getMemberIds(Long roomId) {
+        return members.get(roomId);
+    }
+
+    public void invalidate(Long roomId) {
+        members.invalidate(roomId);
+        realtimeBroker.publish(RealtimeEnvelope.roomMembersChanged(realtimeBroker.nodeId(), roomId));
+    }
+
+    // Applied locally only - re-publishing would echo the invalidation between nodes
+    private void onRemoteEnvelope(RealtimeEnvelope envelope) {
+        if (envelope.kind() == RealtimeEnvelope.Kind.ROOM_MEMBERS
+                && !realtimeBroker.nodeId().equals(envelope.originNodeId())) {
+            members.invalidate(envelope.roomId());
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = members.stats();
+        Map<String, Object> result = new HashMap<>();
+        result.put("rooms", members.estimatedSize());
+        result.put("maxSize", maxSize);
+        result.put("ttlMinutes", ttlMinutes);
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        return result;
+    }
+}
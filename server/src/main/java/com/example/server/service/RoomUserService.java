@@ -20,12 +20,15 @@ public class RoomUserService {
     private final RoomUserRepository roomUserRepository;
     private final ChatRoomRepository chatRoomRepository;
     private final UserRepository userRepository;
+    private final RoomMembershipCache roomMembershipCache;
 
     @Autowired
-    public RoomUserService(RoomUserRepository roomUserRepository, ChatRoomRepository chatRoomRepository, UserRepository userRepository) {
+    public RoomUserService(RoomUserRepository roomUserRepository, ChatRoomRepository chatRoomRepository, UserRepository userRepository,
+                           RoomMembershipCache roomMembershipCache) {
         this.roomUserRepository = roomUserRepository;
         this.chatRoomRepository = chatRoomRepository;
         this.userRepository = userRepository;
+        this.roomMembershipCache = roomMembershipCache;
     }
 
     /**
@@ -77,6 +80,7 @@ public class RoomUserService {
         roomUser.setJoinedAt(ZonedDateTime.now(ZoneOffset.UTC));
 
         RoomUser savedRoomUser = roomUserRepository.save(roomUser);
+        roomMembershipCache.invalidate(roomId);
         return convertToDTO(savedRoomUser);
     }
 
@@ -93,6 +97,7 @@ public class RoomUserService {
                 .orElseThrow(() -> new RuntimeException("User not found in this room"));
 
         roomUserRepository.delete(roomUser);
+        roomMembershipCache.invalidate(roomId);
     }    /**
      * Convert RoomUser entity to DTO
      */
@@ -0,0 +1,153 @@
+package com.example.server.service;
+
+import com.example.server.model.Entity.TimelineEntry;
+import com.example.server.repository.FollowRepository;
+import com.example.server.repository.FriendRepository;
+import com.example.server.repository.PostRepository;
+import com.example.server.repository.TimelineEntryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Personalized home timeline.
+ * New posts are pushed into the timeline_entries rows of the author, their friends and their followers
+ * (fan-out-on-write). Authors with a very large follower count skip the follower fan-out; their posts
+ * are merged in when a follower reads the timeline instead (fan-out-on-read).
+ */
+@Service
+public class TimelineService {
+
+    // Orders (postId -> createdDate) keys by (createdDate, postId) descending
+    private static final Comparator<Map.Entry<Long, ZonedDateTime>> NEWEST_FIRST = Comparator
+            .comparing((Map.Entry<Long, ZonedDateTime> key) -> key.getValue(), Comparator.reverseOrder())
+            .thenComparing(Map.Entry::getKey, Comparator.reverseOrder());
+
+    private static final String INSERT_PREFIX =
+            "INSERT INTO timeline_entries (user_id, post_id, author_id, created_date) VALUES ";
+    // Re-running a fan-out (outbox redelivery) leaves existing entries alone
+    private static final String INSERT_SUFFIX = " ON CONFLICT (user_id, post_id) DO NOTHING";
+
+    private final TimelineEntryRepository timelineEntryRepository;
+    private final PostRepository postRepository;
+    private final FriendRepository friendRepository;
+    private final FollowRepository followRepository;
+    private final FollowService followService;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${timeline.celebrity-follower-threshold:5000}")
+    private long celebrityFollowerThreshold;
+
+    @Value("${timeline.fanout-chunk-size:500}")
+    private int fanOutChunkSize;
+
+    @Value("${timeline.retention-days:30}")
+    private int retentionDays;
+
+    public TimelineService(TimelineEntryRepository timelineEntryRepository, PostRepository postRepository,
+                           FriendRepository friendRepository, FollowRepository followRepository,
+                           FollowService followService, JdbcTemplate jdbcTemplate) {
+        this.timelineEntryRepository = timelineEntryRepository;
+        this.postRepository = postRepository;
+        this.friendRepository = friendRepository;
+        this.followRepository = followRepository;
+        this.followService = followService;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Push a new post into the timelines of its audience - run by the outbox, so redelivery must be a no-op
+     */
+    @Transactional
+    public int fanOutPost(Integer authorId, Long postId, ZonedDateTime createdDate) {
+        Set<Integer> recipientIds = new LinkedHashSet<>();
+        recipientIds.add(authorId);
+        recipientIds.addAll(friendRepository.findFriendIdsByUserId(authorId));
+
+        // High-follower accounts are read-merged by their followers instead
+        if (!isHighFollowerAccount(authorId)) {
+            recipientIds.addAll(followService.getFollowerIds(authorId));
+        }
+
+        // One multi-row INSERT per chunk (IDENTITY ids keep Hibernate from batching saveAll)
+        List<Integer> recipients = new ArrayList<>(recipientIds);
+        Timestamp created = Timestamp.from(createdDate.toInstant());
+        for (int from = 0; from < recipients.size(); from += fanOutChunkSize) {
+            List<Integer> chunk = recipients.subList(from, Math.min(from + fanOutChunkSize, recipients.size()));
+            StringJoiner values = new StringJoiner(", ", INSERT_PREFIX, INSERT_SUFFIX);
+            Object[] args = new Object[chunk.size() * 4];
+            int i = 0;
+            for (Integer recipientId : chunk) {
+                values.add("(?, ?, ?, ?)");
+                args[i++] = recipientId;
+                args[i++] = postId;
+                args[i++] = authorId;
+                args[i++] = created;
+            }
+            jdbcTemplate.update(values.toString(), args);
+        }
+        return recipientIds.size();
+    }
+
+    /**
+     * Read up to limit post ids of a user's timeline that come strictly before the given position.
+     * Pass a null position for the first page. Ids are ordered newest first.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> readTimeline(Integer userId, ZonedDateTime beforeDate, Long beforeId, int limit) {
+        Pageable pageable = PageRequest.of(0, limit);
+        boolean firstPage = beforeDate == null || beforeId == null;
+
+        // 1. Pushed entries - a bounded range read on (user_id, created_date, post_id)
+        List<TimelineEntry> entries = firstPage
+                ? timelineEntryRepository.findTimelinePage(userId, pageable)
+                : timelineEntryRepository.findTimelinePageBefore(userId, beforeDate, beforeId, pageable);
+        Map<Long, ZonedDateTime> keys = new HashMap<>();
+        entries.forEach(entry -> keys.put(entry.getPostId(), entry.getCreatedDate()));
+
+        // 2. Pulled posts from followed high-follower accounts
+        List<Integer> pulledAuthorIds = followRepository.findHighFollowerFollowingIds(userId, celebrityFollowerThreshold);
+        if (!pulledAuthorIds.isEmpty()) {
+            List<Object[]> pulled = firstPage
+                    ? postRepository.findKeysByAuthorsPage(pulledAuthorIds, pageable)
+                    : postRepository.findKeysByAuthorsPageBefore(pulledAuthorIds, beforeDate, beforeId, pageable);
+            pulled.forEach(row -> keys.putIfAbsent((Long) row[0], (ZonedDateTime) row[1]));
+        }
+
+        return keys.entrySet().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public void removePost(Long postId) {
+        timelineEntryRepository.deleteByPostId(postId);
+    }
+
+    /**
+     * Drop timeline entries past the retention window - runs daily at 5 AM
+     */
+    @Scheduled(cron = "0 0 5 * * ?")
+    @Transactional
+    public void pruneOldEntries() {
+        ZonedDateTime cutoff = ZonedDateTime.now(ZoneOffset.UTC).minusDays(retentionDays);
+        int removed = timelineEntryRepository.deleteOlderThan(cutoff);
+        System.out.println("Pruned " + removed + " timeline entries older than " + retentionDays + " days");
+    }
+
+    private boolean isHighFollowerAccount(Integer userId) {
+        return followRepository.findFollowerCount(userId) >= celebrityFollowerThreshold;
+    }
+}
@@ -3,12 +3,14 @@ package com.example.server.service;
 import com.example.server.dto.UserDTO;
 import com.example.server.dto.UpdateUserProfileRequest;
 import com.example.server.dto.ChangePasswordRequest;
+import com.example.server.event.UserProfileChangedEvent;
 import com.example.server.model.Entity.User;
 import com.example.server.model.Entity.UserData;
 import com.example.server.model.Entity.Role; // Changed import from com.example.wingit.model.Enum.Role
 import com.example.server.repository.RoleRepository;
 import com.example.server.repository.UserDataRepository;
 import com.example.server.repository.UserRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import java.time.LocalDate;
@@ -25,13 +27,16 @@ public class UserService {
     private final UserDataRepository userDataRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
 
-    public UserService(UserRepository userRepository, UserDataRepository userDataRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, UserDataRepository userDataRepository, RoleRepository roleRepository, PasswordEncoder passwordEncoder,
+                       ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.userDataRepository = userDataRepository;
         this.roleRepository = roleRepository;
         this.passwordEncoder = passwordEncoder;
+        this.eventPublisher = eventPublisher;
     }
 
     public UserDTO registerUser(UserDTO userDTO) {
@@ -140,6 +145,7 @@ public class UserService {
 
         userDataRepository.save(userData);
         user.setUserData(userData);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
         
         return convertToUserDTO(user);
     }
@@ -1,11 +1,13 @@
 package com.example.server.service;
 
+import com.example.server.event.UserProfileChangedEvent;
 import com.example.server.model.Entity.User;
 import com.example.server.model.Entity.UserSettings;
 import com.example.server.model.DTO.UserSettingsDTO;
 import com.example.server.repository.UserRepository;
 import com.example.server.repository.UserSettingsRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,6 +22,9 @@ public class UserSettingsService {
     
     @Autowired
     private UserRepository userRepository;
+    
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
       /**
      * Get user settings by user ID. Creates default settings if none exist.
      * @param userId the user ID
@@ -62,6 +67,7 @@ public class UserSettingsService {
         userSettings.validatePrivacyLevel();
         
         UserSettings savedSettings = userSettingsRepository.save(userSettings);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userSettingsDTO.getUserId()));
         return convertToDTO(savedSettings);
     }
       /**
@@ -98,6 +104,7 @@ public class UserSettingsService {
         defaultSettings.setEnableNotifications(true);
         
         UserSettings savedSettings = userSettingsRepository.save(defaultSettings);
+        eventPublisher.publishEvent(new UserProfileChangedEvent(userId));
         return convertToDTO(savedSettings);
     }    /**
      * Convert UserSettings entity to DTO
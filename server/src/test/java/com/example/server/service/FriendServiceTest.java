@@ -0,0 +1,48 @@
+package com.example.server.service;
+
+import com.example.server.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FriendServiceTest {
+
+    @Mock
+    private FriendRepository friendRepository;
+    @Mock
+    private FriendRequestRepository friendRequestRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private RequestStatusRepository requestStatusRepository;
+    @Mock
+    private ChatRoomService chatRoomService;
+    @Mock
+    private RoomUserRepository roomUserRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private FriendService friendService;
+
+    @Test
+    void areFriendsUsesIndexedLookupInsteadOfLoadingAllFriendships() {
+        when(friendRepository.existsBetweenUsers(1, 2)).thenReturn(true);
+        when(friendRepository.existsBetweenUsers(1, 3)).thenReturn(false);
+
+        assertTrue(friendService.areFriends(1, 2));
+        assertFalse(friendService.areFriends(1, 3));
+
+        verify(friendRepository).existsBetweenUsers(1, 2);
+        verify(friendRepository).existsBetweenUsers(1, 3);
+        verify(friendRepository, never()).findAll();
+    }
+}
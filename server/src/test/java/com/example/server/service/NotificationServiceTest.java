@@ -0,0 +1,126 @@
+package com.example.server.service;
+
+import com.example.server.dto.NotificationDTO;
+import com.example.server.model.Entity.Comment;
+import com.example.server.model.Entity.Notification;
+import com.example.server.model.Entity.Post;
+import com.example.server.model.Entity.User;
+import com.example.server.repository.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationServiceTest {
+
+    @Mock
+    private NotificationRepository notificationRepository;
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private PostRepository postRepository;
+    @Mock
+    private CommentRepository commentRepository;
+    @Mock
+    private FriendRepository friendRepository;
+    @Mock
+    private FollowService followService;
+    @Mock
+    private NotificationBulkWriter notificationBulkWriter;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+    @Mock
+    private NotificationCounterService notificationCounterService;
+
+    @InjectMocks
+    private NotificationService notificationService;
+
+    @Test
+    void friendPostFanOutUsesFriendIdLookup() {
+        when(userRepository.findById(Integer.valueOf(1))).thenReturn(Optional.of(user(1)));
+        when(postRepository.existsById(10L)).thenReturn(true);
+        when(friendRepository.findFriendIdsByUserId(1)).thenReturn(List.of(2, 3));
+        when(followService.getFollowerIds(1)).thenReturn(List.of(3, 4));
+        when(notificationBulkWriter.insertNewForRecipients(anyCollection(), eq(1), eq("FRIEND_POST"), eq(10L), isNull(), anyString()))
+                .thenAnswer(invocation -> {
+                    List<Long> ids = new ArrayList<>();
+                    for (int i = 0; i < invocation.<Collection<Integer>>getArgument(0).size(); i++) {
+                        ids.add(100L + i);
+                    }
+                    return ids;
+                });
+
+        NotificationDTO first = notificationService.createFriendPostNotification(1, 10L);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Integer>> recipients = ArgumentCaptor.forClass(Collection.class);
+        verify(notificationBulkWriter).insertNewForRecipients(recipients.capture(), eq(1), eq("FRIEND_POST"), eq(10L), isNull(), anyString());
+        assertEquals(Set.of(2, 3, 4), Set.copyOf(recipients.getValue()));
+        assertNotNull(first);
+        verify(friendRepository).findFriendIdsByUserId(1);
+        verify(friendRepository, never()).findAll();
+    }
+
+    @Test
+    void likeFromFriendUsesIndexedFriendshipCheck() {
+        User author = user(1);
+        when(userRepository.findById(Integer.valueOf(2))).thenReturn(Optional.of(user(2)));
+        when(postRepository.findById(10L)).thenReturn(Optional.of(post(10L, author)));
+        when(friendRepository.existsBetweenUsers(2, 1)).thenReturn(true);
+        when(notificationRepository.save(any(Notification.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        NotificationDTO dto = notificationService.createLikeNotification(2, 10L);
+
+        assertNotNull(dto);
+        assertEquals(1, dto.getRecipientUserId());
+        assertEquals("LIKE", dto.getType());
+        verify(friendRepository).existsBetweenUsers(2, 1);
+        verify(friendRepository, never()).findAll();
+    }
+
+    @Test
+    void commentFromStrangerIsNotNotified() {
+        User author = user(1);
+        Comment comment = new Comment();
+        comment.setId(20L);
+        when(userRepository.findById(Integer.valueOf(3))).thenReturn(Optional.of(user(3)));
+        when(postRepository.findById(10L)).thenReturn(Optional.of(post(10L, author)));
+        when(commentRepository.findById(20L)).thenReturn(Optional.of(comment));
+        when(friendRepository.existsBetweenUsers(3, 1)).thenReturn(false);
+        when(followService.isFollowing(3, 1)).thenReturn(false);
+
+        assertNull(notificationService.createCommentNotification(3, 10L, 20L));
+
+        verify(friendRepository).existsBetweenUsers(3, 1);
+        verify(friendRepository, never()).findAll();
+        verify(notificationRepository, never()).save(any());
+    }
+
+    private static User user(Integer id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        return user;
+    }
+
+    private static Post post(Long id, User author) {
+        Post post = new Post();
+        post.setId(id);
+        post.setUser(author);
+        return post;
+    }
+}